@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2020-2022 Brendan Grieve (bundabrg) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package au.com.grieve.bcf.benchmarks;
+
+import au.com.grieve.bcf.BaseCommand;
+import au.com.grieve.bcf.CommandManager;
+import au.com.grieve.bcf.CommandRoot;
+
+/**
+ * A manager that isn't attached to any platform
+ */
+public class BenchmarkCommandManager extends CommandManager<BaseCommand, CommandRoot> {
+
+    @Override
+    protected CommandRoot createCommandRoot(BaseCommand cmd) {
+        return new CommandRoot(this, cmd);
+    }
+
+    /**
+     * Return the command root of a registered root command
+     */
+    public CommandRoot getCommandRoot(Class<? extends BaseCommand> cls) {
+        return getCommands().get(cls).getCommandRoot();
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2020-2022 Brendan Grieve (bundabrg) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package au.com.grieve.bcf.benchmarks;
+
+import au.com.grieve.bcf.BaseCommand;
+import lombok.Getter;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates, compiles and registers a tree of command classes
+ * <p>
+ * As @Arg are annotations the classes are written as source and compiled with the system Java compiler, so
+ * benchmarks must be run with a JDK.
+ * <p>
+ * The root is {@code /bench}. Every command has one method with {@code variants} @Arg each starting with its own
+ * literal followed by an @int, an @string and {@code switches} switches. Each command below {@code depth} has
+ * {@code width} sub-commands, each with a class @Arg literal of its own.
+ */
+public class CommandTreeGenerator {
+    private static final String PACKAGE = "au.com.grieve.bcf.benchmarks.generated";
+
+    private final int depth;
+    private final int width;
+    private final int variants;
+    private final int switches;
+
+    private final List<String> classNames = new ArrayList<>();
+    private final List<String> sources = new ArrayList<>();
+
+    @Getter
+    private Class<? extends BaseCommand> rootClass;
+
+    public CommandTreeGenerator(int depth, int width, int variants, int switches) {
+        this.depth = depth;
+        this.width = width;
+        this.variants = variants;
+        this.switches = switches;
+    }
+
+    /**
+     * Generate the commands and register them with manager
+     */
+    public void register(BenchmarkCommandManager manager) throws IOException, ReflectiveOperationException {
+        generate(0, 0, null);
+        ClassLoader loader = compile();
+
+        List<Class<? extends BaseCommand>> classes = new ArrayList<>();
+        for (String name : classNames) {
+            classes.add(loader.loadClass(PACKAGE + "." + name).asSubclass(BaseCommand.class));
+        }
+
+        rootClass = classes.get(0);
+        manager.registerCommand(rootClass.getConstructor().newInstance());
+
+        // Classes were generated depth first so each parent comes before its children
+        for (int i = 1; i < classes.size(); i++) {
+            Class<? extends BaseCommand> cls = classes.get(i);
+            Class<? extends BaseCommand> parent = classes.get(classNames.indexOf(parentOf(classNames.get(i))));
+            manager.registerSubCommand(parent, cls.getConstructor().newInstance());
+        }
+    }
+
+    /**
+     * Return a line that reaches the last method @Arg of the last command at the deepest level, setting every switch
+     */
+    public String getDeepestLine() {
+        StringBuilder line = new StringBuilder();
+        for (int level = 1; level <= depth; level++) {
+            line.append("n").append(level).append("_").append(width - 1).append(" ");
+        }
+
+        line.append("v").append(variants - 1).append(" 42 text");
+        for (int i = 0; i < switches; i++) {
+            line.append(" -s").append(i).append(" value");
+        }
+
+        return line.toString();
+    }
+
+    /**
+     * Return every prefix of a line as it would be seen by completion while it was typed
+     */
+    public static List<String> getKeystrokes(String line) {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i <= line.length(); i++) {
+            result.add(line.substring(0, i));
+        }
+        return result;
+    }
+
+    private void generate(int level, int index, String parent) {
+        String name = parent == null ? "Bench" : parent + "_" + index;
+        classNames.add(name);
+
+        StringBuilder source = new StringBuilder();
+        source.append("package ").append(PACKAGE).append(";\n\n")
+                .append("import au.com.grieve.bcf.BaseCommand;\n")
+                .append("import au.com.grieve.bcf.annotations.Arg;\n")
+                .append("import au.com.grieve.bcf.annotations.Command;\n")
+                .append("import au.com.grieve.bcf.annotations.Default;\n")
+                .append("import au.com.grieve.bcf.annotations.Error;\n\n");
+
+        if (parent == null) {
+            source.append("@Command(\"bench\")\n");
+        } else {
+            source.append("@Arg(\"n").append(level).append("_").append(index).append("\")\n");
+        }
+
+        source.append("public class ").append(name).append(" extends BaseCommand {\n");
+
+        // Error and Default only on the root, the same as most commands
+        if (parent == null) {
+            source.append("    @Error public void onError(Object sender, String message) {}\n");
+            source.append("    @Default public void onDefault(Object sender) {}\n");
+        }
+
+        StringBuilder switchArgs = new StringBuilder();
+        StringBuilder switchParams = new StringBuilder();
+        for (int i = 0; i < switches; i++) {
+            switchArgs.append(" @string(switch=s").append(i).append("|switch").append(i).append(", default=none)");
+            switchParams.append(", Object s").append(i);
+        }
+
+        for (int i = 0; i < variants; i++) {
+            source.append("    @Arg(\"v").append(i).append(" @int @string").append(switchArgs).append("\")\n");
+        }
+        source.append("    public void run(Object sender, Object number, Object text").append(switchParams).append(") {}\n");
+        source.append("}\n");
+
+        sources.add(source.toString());
+
+        if (level < depth) {
+            for (int i = 0; i < width; i++) {
+                generate(level + 1, i, name);
+            }
+        }
+    }
+
+    private static String parentOf(String name) {
+        return name.substring(0, name.lastIndexOf('_'));
+    }
+
+    private ClassLoader compile() throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("Benchmarks must be run using a JDK");
+        }
+
+        Path dir = Files.createTempDirectory("bcf-benchmarks");
+        Path packageDir = Files.createDirectories(dir.resolve(PACKAGE.replace('.', File.separatorChar)));
+
+        List<String> arguments = new ArrayList<>();
+        arguments.add("-proc:none");
+        arguments.add("-classpath");
+        arguments.add(System.getProperty("java.class.path"));
+        arguments.add("-d");
+        arguments.add(dir.toString());
+
+        for (int i = 0; i < classNames.size(); i++) {
+            Path file = packageDir.resolve(classNames.get(i) + ".java");
+            Files.write(file, sources.get(i).getBytes(StandardCharsets.UTF_8));
+            arguments.add(file.toString());
+        }
+
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        if (compiler.run(null, null, errors, arguments.toArray(new String[0])) != 0) {
+            throw new IllegalStateException("Unable to compile generated commands:\n" + errors);
+        }
+
+        return new URLClassLoader(new URL[]{dir.toUri().toURL()}, getClass().getClassLoader());
+    }
+}
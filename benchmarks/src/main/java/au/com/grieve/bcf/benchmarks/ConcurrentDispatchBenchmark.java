@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2020-2022 Brendan Grieve (bundabrg) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package au.com.grieve.bcf.benchmarks;
+
+import au.com.grieve.bcf.CommandContext;
+import au.com.grieve.bcf.CommandExecute;
+import au.com.grieve.bcf.CommandRoot;
+import au.com.grieve.bcf.parsers.StringParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Execute of a generated command tree from many threads sharing one manager
+ * <p>
+ * Compare {@code -t 1}, {@code -t 2}, {@code -t 4} and so on to see how execute scales with threads. The
+ * {@code registering} group executes while another thread keeps registering a parser.
+ * <p>
+ * Every execute is checked against one done on a single thread before measuring, and a mismatch fails the run, so
+ * this also stands in for a concurrent test of dispatch.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ConcurrentDispatchBenchmark {
+    @Param({"3"})
+    public int depth;
+
+    @Param({"4"})
+    public int width;
+
+    @Param({"20"})
+    public int variants;
+
+    @Param({"4"})
+    public int switches;
+
+    private BenchmarkCommandManager manager;
+    private CommandRoot root;
+    private String line;
+
+    // Outcome of the line on a single thread
+    private Method expectedMethod;
+    private List<Object> expectedParameters;
+
+    @Setup
+    public void setup() throws Exception {
+        manager = new BenchmarkCommandManager();
+        CommandTreeGenerator generator = new CommandTreeGenerator(depth, width, variants, switches);
+        generator.register(manager);
+
+        root = manager.getCommandRoot(generator.getRootClass());
+        line = generator.getDeepestLine();
+
+        CommandExecute execute = root.execute(line, new CommandContext());
+        if (!execute.getMethod().getName().equals("run")) {
+            throw new IllegalStateException("Deepest line reached " + execute.getMethod() + " instead of a method");
+        }
+        expectedMethod = execute.getMethod();
+        expectedParameters = execute.getParameters();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object execute() {
+        return run();
+    }
+
+    @Benchmark
+    @Group("registering")
+    @GroupThreads(3)
+    public Object executeWhileRegistering() {
+        return run();
+    }
+
+    @Benchmark
+    @Group("registering")
+    @GroupThreads(1)
+    public void registerParser() {
+        manager.registerParser("benchmark", StringParser::new);
+    }
+
+    private Object run() {
+        CommandExecute execute = root.execute(line, new CommandContext());
+        if (execute.getMethod() != expectedMethod || !execute.getParameters().equals(expectedParameters)) {
+            throw new IllegalStateException("Concurrent execute reached " + execute.getMethod() + " with "
+                    + execute.getParameters() + " instead of " + expectedMethod + " with " + expectedParameters);
+        }
+
+        execute.invoke((Object) null);
+        return execute;
+    }
+}
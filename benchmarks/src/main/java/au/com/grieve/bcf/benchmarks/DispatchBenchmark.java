@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2020-2022 Brendan Grieve (bundabrg) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package au.com.grieve.bcf.benchmarks;
+
+import au.com.grieve.bcf.Candidate;
+import au.com.grieve.bcf.CommandContext;
+import au.com.grieve.bcf.CommandExecute;
+import au.com.grieve.bcf.CommandRoot;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Execute and completion of a generated command tree
+ * <p>
+ * Run with {@code java -jar benchmarks/target/benchmarks.jar -prof gc} to also see allocation per operation.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DispatchBenchmark {
+    @Param({"1", "3"})
+    public int depth;
+
+    @Param({"2", "8"})
+    public int width;
+
+    @Param({"1", "20", "80"})
+    public int variants;
+
+    @Param({"0", "4"})
+    public int switches;
+
+    private CommandRoot root;
+    private String line;
+    private String[] keystrokes;
+    private int keystroke;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkCommandManager manager = new BenchmarkCommandManager();
+        CommandTreeGenerator generator = new CommandTreeGenerator(depth, width, variants, switches);
+        generator.register(manager);
+
+        root = manager.getCommandRoot(generator.getRootClass());
+        line = generator.getDeepestLine();
+        keystrokes = CommandTreeGenerator.getKeystrokes(line).toArray(new String[0]);
+
+        // Make sure the line actually reaches a method
+        CommandExecute execute = root.execute(line, new CommandContext());
+        if (execute == null || !execute.getMethod().getName().equals("run")) {
+            throw new IllegalStateException("Benchmark line does not resolve: " + line + " -> " + execute);
+        }
+    }
+
+    /**
+     * Resolve and invoke the deepest command
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Object execute() {
+        CommandExecute execute = root.execute(line, new CommandContext());
+        execute.invoke((Object) null);
+        return execute;
+    }
+
+    /**
+     * Complete the deepest command one keystroke at a time
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Candidate> completeKeystroke() {
+        String input = keystrokes[keystroke];
+        keystroke = (keystroke + 1) % keystrokes.length;
+        return root.complete(input, new CommandContext());
+    }
+}
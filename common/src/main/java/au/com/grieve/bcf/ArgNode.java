@@ -23,30 +23,64 @@
 
 package au.com.grieve.bcf;
 
+import au.com.grieve.bcf.annotations.Arg;
 import lombok.Getter;
 
 import java.io.IOException;
 import java.io.StringReader;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * A single parser definition from an @Arg string
+ * <p>
+ * Nodes are immutable so a parsed @Arg can be shared by every dispatch for the life of the server.
+ */
 public class ArgNode {
+    // Parsed @Arg strings
+    private static final Map<String, List<ArgNode>> cache = new ConcurrentHashMap<>();
+
     @Getter
     final String name;
     @Getter
-    final Map<String, String> parameters = new HashMap<>();
+    final Map<String, String> parameters;
+
+    // Forms of the parameters prepared by parsers, by key
+    private final Map<Object, Object> compiled = new ConcurrentHashMap<>();
 
+    // Nodes are used as keys on every dispatch
+    private final int hash;
 
     public ArgNode(String name) {
-        this.name = name;
+        this(name, Collections.emptyMap());
     }
 
     public ArgNode(String name, Map<String, String> parameters) {
-        this(name);
-        this.parameters.putAll(parameters);
+        this.name = name;
+        this.parameters = parameters.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(new HashMap<>(parameters));
+        this.hash = 31 * name.hashCode() + this.parameters.hashCode();
+    }
+
+    /**
+     * Return what compiler produced for key the first time it was asked, so parsers can prepare their parameters
+     * once for every dispatch through this node
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T compile(Object key, Function<ArgNode, T> compiler) {
+        Object result = compiled.get(key);
+        if (result == null) {
+            result = compiled.computeIfAbsent(key, k -> compiler.apply(this));
+        }
+        return (T) result;
+    }
+
+    /**
+     * Return the nodes of an @Arg. The list is read only and shared by everything using the same string.
+     */
+    public static List<ArgNode> parse(Arg arg) {
+        return cache.computeIfAbsent(String.join(" ", arg.value()), k -> Collections.unmodifiableList(parse(k)));
     }
 
     public static List<ArgNode> parse(String input) {
@@ -207,7 +241,12 @@ public class ArgNode {
 
         ArgNode data = (ArgNode) obj;
 
-        return data.getName().equals(name);
+        return data.hash == hash && data.getName().equals(name) && data.getParameters().equals(parameters);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
     }
 
     @Override
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2020-2022 Brendan Grieve (bundabrg) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package au.com.grieve.bcf;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Cursor over the words of a command line
+ * <p>
+ * The words are never copied or modified. Each branch of a dispatch works on its own copy of the reader which only
+ * holds the position of the next word.
+ */
+public class ArgumentReader {
+    private final List<String> tokens;
+
+    @Getter
+    private int position;
+
+    public ArgumentReader(List<String> tokens) {
+        this(tokens, 0);
+    }
+
+    public ArgumentReader(List<String> tokens, int position) {
+        this.tokens = tokens;
+        this.position = position;
+    }
+
+    /**
+     * Return a reader at the same position which can be advanced independently of this one
+     */
+    public ArgumentReader copy() {
+        return new ArgumentReader(tokens, position);
+    }
+
+    /**
+     * Move to a position previously returned by {@link #getPosition()}
+     */
+    public void setPosition(int position) {
+        this.position = position;
+    }
+
+    public boolean hasNext() {
+        return position < tokens.size();
+    }
+
+    /**
+     * Number of words not yet read
+     */
+    public int remaining() {
+        return tokens.size() - position;
+    }
+
+    /**
+     * Return the next word without consuming it
+     */
+    public String peek() {
+        return tokens.get(position);
+    }
+
+    /**
+     * Return the next word and consume it
+     */
+    public String next() {
+        return tokens.get(position++);
+    }
+
+    /**
+     * Return the final word of the whole line, which is empty when completing a new word
+     */
+    public String last() {
+        return tokens.get(tokens.size() - 1);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getName() + "(tokens=" + tokens.subList(position, tokens.size()) + ")";
+    }
+}
@@ -23,8 +23,6 @@
 
 package au.com.grieve.bcf;
 
-import au.com.grieve.bcf.annotations.Default;
-import au.com.grieve.bcf.annotations.Error;
 import lombok.Getter;
 
 import java.lang.reflect.Method;
@@ -32,29 +30,18 @@ import java.lang.reflect.Method;
 public abstract class BaseCommand {
 
     @Getter
-    private final Method errorMethod;
-
-    @Getter
-    private final Method defaultMethod;
+    private final CommandDescriptor descriptor;
 
     public BaseCommand() {
-        Method errorMethod = null;
-        Method defaultMethod = null;
-
-        // Check if we have an error Method
-        for (Method method : getClass().getMethods()) {
-            if (errorMethod == null && method.getAnnotation(Error.class) != null) {
-                errorMethod = method;
-                continue;
-            }
-
-            if (defaultMethod == null && method.getAnnotation(Default.class) != null) {
-                defaultMethod = method;
-            }
-        }
-
-        this.errorMethod = errorMethod;
-        this.defaultMethod = defaultMethod;
+        descriptor = CommandDescriptor.of(getClass());
+    }
+
+    public Method getErrorMethod() {
+        return descriptor.getErrorMethod() != null ? descriptor.getErrorMethod().getMethod() : null;
+    }
+
+    public Method getDefaultMethod() {
+        return descriptor.getDefaultMethod() != null ? descriptor.getDefaultMethod().getMethod() : null;
     }
 
 
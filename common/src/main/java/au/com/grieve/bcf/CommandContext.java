@@ -27,34 +27,283 @@ import lombok.Getter;
 import lombok.Setter;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Stack;
+import java.util.Locale;
+import java.util.Map;
 
-@Getter
+/**
+ * State of a single dispatch branch
+ * <p>
+ * Parsers, switches and the command stack are kept as linked lists sharing their tails with the context they were
+ * copied from. Copying a context is O(1) and adding to one never affects its copies.
+ * <p>
+ * Switches are kept as the chain of every switch added, shared in the same way, and a set of the ones already
+ * consumed on this branch.
+ */
 public class CommandContext {
-    private final List<Parser> switches = new ArrayList<>();
-    private final List<Parser> parsers = new ArrayList<>();
-    private final Stack<BaseCommand> commandStack = new Stack<>();
+    private SwitchChain switches;
+    private BitSet consumedSwitches;
+    private Link<Parser> parsers;
+    private Link<BaseCommand> commandStack;
 
+    @Getter
     @Setter
     private Parser currentParser;
 
+    // Completion should stop once this expires
+    @Getter
+    @Setter
+    private Deadline deadline = Deadline.NONE;
+
+    // Parses done so far by the dispatch this context belongs to
+    @Getter
+    @Setter
+    private ParseMemo memo;
+
     public CommandContext() {
     }
 
     public CommandContext(CommandContext original) {
-        switches.addAll(original.getSwitches());
-        parsers.addAll(original.getParsers());
-        commandStack.addAll(original.getCommandStack());
-        currentParser = original.getCurrentParser();
+        switches = original.switches;
+        consumedSwitches = original.consumedSwitches;
+        parsers = original.parsers;
+        commandStack = original.commandStack;
+        currentParser = original.currentParser;
+        deadline = original.deadline;
+        memo = original.memo;
     }
 
+    /**
+     * Return a copy of this context. Subclasses should override this to return their own type.
+     */
     public CommandContext copy() {
         return new CommandContext(this);
-//        try {
-//            return getClass().getConstructor(CommandContext.class).newInstance(this);
-//        } catch (InstantiationException | NoSuchMethodException | InvocationTargetException | IllegalAccessException e) {
-//            throw new RuntimeException(e);
-//        }
+    }
+
+    /**
+     * Return the parsers in the order they were added
+     */
+    public List<Parser> getParsers() {
+        return Link.toList(parsers);
+    }
+
+    /**
+     * Return the parser added most recently, or null
+     */
+    public Parser getLastParser() {
+        return parsers != null ? parsers.value : null;
+    }
+
+    public int getParserCount() {
+        return Link.size(parsers);
+    }
+
+    public void addParser(Parser parser) {
+        parsers = new Link<>(parser, parsers);
+    }
+
+    /**
+     * Replace a parser with another in the same position
+     */
+    public void replaceParser(Parser original, Parser replacement) {
+        parsers = Link.replace(parsers, original, replacement);
+    }
+
+    /**
+     * Return the pending switches in the order they were added
+     */
+    public List<Parser> getSwitches() {
+        if (switches == null) {
+            return Collections.emptyList();
+        }
+
+        List<Parser> result = new ArrayList<>();
+        for (int slot = nextPendingSwitch(0); slot >= 0; slot = nextPendingSwitch(slot + 1)) {
+            result.add(switches.parsers[slot]);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    public void addSwitch(Parser parser) {
+        switches = new SwitchChain(switches, parser);
+    }
+
+    public void removeSwitch(Parser parser) {
+        if (switches == null) {
+            return;
+        }
+
+        for (int slot = nextPendingSwitch(0); slot >= 0; slot = nextPendingSwitch(slot + 1)) {
+            if (switches.parsers[slot] == parser) {
+                BitSet consumed = consumedSwitches == null ? new BitSet() : (BitSet) consumedSwitches.clone();
+                consumed.set(slot);
+                consumedSwitches = consumed;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Return the first pending switch with name, ignoring case, or null
+     */
+    public Parser findSwitch(String name) {
+        if (switches == null) {
+            return null;
+        }
+
+        int[] slots = switches.getIndex().get(name.toLowerCase(Locale.ROOT));
+        if (slots != null) {
+            for (int slot : slots) {
+                if (consumedSwitches == null || !consumedSwitches.get(slot)) {
+                    return switches.parsers[slot];
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return a completion for the first name of each pending switch starting with prefix, ignoring case, or for the
+     * first name of each if prefix is null
+     */
+    public List<Candidate> getSwitchCandidates(String prefix, int limit) {
+        if (switches == null) {
+            return Collections.emptyList();
+        }
+
+        List<Candidate> result = new ArrayList<>();
+        for (int slot = nextPendingSwitch(0); slot >= 0 && result.size() < limit; slot = nextPendingSwitch(slot + 1)) {
+            ParserDefinition definition = switches.definitions[slot];
+            List<String> names = definition.getSwitchNames();
+
+            for (int i = 0; i < names.size(); i++) {
+                String name = names.get(i);
+                if (prefix == null || name.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                    result.add(definition.getSwitchCandidates().get(i));
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Return the first slot at or after from that has not been consumed, or -1
+     */
+    private int nextPendingSwitch(int from) {
+        int slot = consumedSwitches == null ? from : consumedSwitches.nextClearBit(from);
+        return slot < switches.parsers.length ? slot : -1;
+    }
+
+    /**
+     * Return the commands entered so far, outermost first
+     */
+    public List<BaseCommand> getCommandStack() {
+        return Link.toList(commandStack);
+    }
+
+    public void pushCommand(BaseCommand command) {
+        commandStack = new Link<>(command, commandStack);
+    }
+
+    /**
+     * Immutable list of every switch added to a chain, in order, with their names indexed the first time one is
+     * looked up
+     */
+    private static final class SwitchChain {
+        final Parser[] parsers;
+        final ParserDefinition[] definitions;
+
+        // Lowercase name to the slots having it
+        private Map<String, int[]> index;
+
+        SwitchChain(SwitchChain previous, Parser parser) {
+            int size = previous == null ? 0 : previous.parsers.length;
+
+            parsers = previous == null ? new Parser[1] : Arrays.copyOf(previous.parsers, size + 1);
+            definitions = previous == null ? new ParserDefinition[1] : Arrays.copyOf(previous.definitions, size + 1);
+
+            parsers[size] = parser;
+            definitions[size] = parser.getDefinition() != null
+                    ? parser.getDefinition()
+                    : parser.getManager().getDefinition(parser.getArgNode());
+        }
+
+        Map<String, int[]> getIndex() {
+            if (index == null) {
+                Map<String, int[]> result = new HashMap<>();
+                for (int slot = 0; slot < definitions.length; slot++) {
+                    for (String name : definitions[slot].getSwitchNames()) {
+                        String key = name.toLowerCase(Locale.ROOT);
+                        int[] slots = result.get(key);
+
+                        if (slots == null) {
+                            result.put(key, new int[]{slot});
+                        } else if (slots[slots.length - 1] != slot) {
+                            int[] merged = Arrays.copyOf(slots, slots.length + 1);
+                            merged[slots.length] = slot;
+                            result.put(key, merged);
+                        }
+                    }
+                }
+                index = result;
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Immutable list node, newest first
+     */
+    private static final class Link<T> {
+        final T value;
+        final Link<T> next;
+        final int size;
+
+        Link(T value, Link<T> next) {
+            this.value = value;
+            this.next = next;
+            this.size = next == null ? 1 : next.size + 1;
+        }
+
+        static int size(Link<?> link) {
+            return link == null ? 0 : link.size;
+        }
+
+        static <T> List<T> toList(Link<T> link) {
+            if (link == null) {
+                return Collections.emptyList();
+            }
+
+            Object[] result = new Object[link.size];
+            for (int i = link.size - 1; link != null; link = link.next, i--) {
+                result[i] = link.value;
+            }
+
+            @SuppressWarnings("unchecked")
+            List<T> list = (List<T>) Collections.unmodifiableList(Arrays.asList(result));
+            return list;
+        }
+
+        /**
+         * Return a list with original replaced by replacement, or removed if replacement is null. Only the nodes in
+         * front of original are copied.
+         */
+        static <T> Link<T> replace(Link<T> link, T original, T replacement) {
+            if (link == null) {
+                return null;
+            }
+
+            if (link.value == original) {
+                return replacement == null ? link.next : new Link<>(replacement, link.next);
+            }
+
+            Link<T> next = replace(link.next, original, replacement);
+            return next == link.next ? link : new Link<>(link.value, next);
+        }
     }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2020-2022 Brendan Grieve (bundabrg) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package au.com.grieve.bcf;
+
+import au.com.grieve.bcf.annotations.Arg;
+import au.com.grieve.bcf.annotations.Default;
+import au.com.grieve.bcf.annotations.Error;
+import au.com.grieve.bcf.annotations.Permission;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Everything dispatch needs to know about a command class, read once through reflection
+ */
+@Getter
+public class CommandDescriptor {
+    private static final ClassValue<CommandDescriptor> descriptors = new ClassValue<CommandDescriptor>() {
+        @Override
+        protected CommandDescriptor computeValue(Class<?> type) {
+            return new CommandDescriptor(type);
+        }
+    };
+
+    private final Class<?> commandClass;
+
+    // Class @Arg and @Permission
+    private final List<List<ArgNode>> args;
+    private final List<String> permissions;
+
+    // Declared methods with an @Arg
+    private final List<MethodDescriptor> methods;
+
+    private final MethodDescriptor errorMethod;
+    private final MethodDescriptor defaultMethod;
+
+    @Getter(AccessLevel.NONE)
+    private final Map<Method, MethodDescriptor> methodMap = new HashMap<>();
+
+    private CommandDescriptor(Class<?> commandClass) {
+        this.commandClass = commandClass;
+        this.args = Collections.unmodifiableList(Arrays.stream(commandClass.getAnnotationsByType(Arg.class))
+                .map(ArgNode::parse)
+                .collect(Collectors.toList()));
+        this.permissions = Collections.unmodifiableList(Arrays.stream(commandClass.getAnnotationsByType(Permission.class))
+                .map(Permission::value)
+                .collect(Collectors.toList()));
+
+        List<MethodDescriptor> methods = new ArrayList<>();
+        for (Method method : sorted(commandClass.getDeclaredMethods())) {
+            if (method.isSynthetic() || method.isBridge() || method.getAnnotationsByType(Arg.class).length == 0) {
+                continue;
+            }
+
+            MethodDescriptor descriptor = new MethodDescriptor(method);
+            methodMap.put(method, descriptor);
+            methods.add(descriptor);
+        }
+        this.methods = Collections.unmodifiableList(methods);
+
+        // Error and Default can be inherited
+        MethodDescriptor errorMethod = null;
+        MethodDescriptor defaultMethod = null;
+
+        for (Method method : sorted(commandClass.getMethods())) {
+            if (errorMethod == null && method.isAnnotationPresent(Error.class)) {
+                errorMethod = methodMap.computeIfAbsent(method, MethodDescriptor::new);
+                continue;
+            }
+
+            if (defaultMethod == null && method.isAnnotationPresent(Default.class)) {
+                defaultMethod = methodMap.computeIfAbsent(method, MethodDescriptor::new);
+            }
+        }
+
+        this.errorMethod = errorMethod;
+        this.defaultMethod = defaultMethod;
+    }
+
+    /**
+     * Return the descriptor for a class. Each class is only ever described once.
+     */
+    public static CommandDescriptor of(Class<?> commandClass) {
+        return descriptors.get(commandClass);
+    }
+
+    private static Method[] sorted(Method[] methods) {
+        Arrays.sort(methods, MethodDescriptor.ORDER);
+        return methods;
+    }
+
+    /**
+     * Return the descriptor of a method of this class
+     */
+    public MethodDescriptor getMethod(Method method) {
+        MethodDescriptor descriptor = methodMap.get(method);
+        return descriptor != null ? descriptor : new MethodDescriptor(method);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getName() + "(commandClass=" + commandClass.getName() + ", args=" + args +
+                ", permissions=" + permissions + ", methods=" + methods + ")";
+    }
+}
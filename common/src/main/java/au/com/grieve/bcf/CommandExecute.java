@@ -23,9 +23,10 @@
 
 package au.com.grieve.bcf;
 
+import au.com.grieve.bcf.exceptions.ParserInvalidResultException;
 import lombok.Getter;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -33,62 +34,150 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 public class CommandExecute {
+    @Getter
+    private final MethodDescriptor descriptor;
+
     @Getter
     private final Method method;
 
     @Getter
     private final BaseCommand command;
 
-    @Getter
-    private final List<Object> parameters = new ArrayList<>();
+    // Parsers bound straight to the method when invoked, or null when parameters were given
+    private final Parser[] parsers;
+
+    private List<Object> parameters;
 
     @Getter
     private final CommandContext context;
 
-    public CommandExecute(BaseCommand command, Method method, List<Object> parameters, CommandContext context) {
+    public CommandExecute(BaseCommand command, MethodDescriptor descriptor, List<Object> parameters, CommandContext context) {
         this.command = command;
-        this.method = method;
+        this.descriptor = descriptor;
+        this.method = descriptor.getMethod();
+        this.parsers = null;
+        this.parameters = new ArrayList<>();
         if (parameters != null) {
             this.parameters.addAll(parameters);
         }
         this.context = context;
     }
 
+    /**
+     * Execute with the results of parsers which have already been validated
+     */
+    public CommandExecute(BaseCommand command, MethodDescriptor descriptor, Parser[] parsers, CommandContext context) {
+        this.command = command;
+        this.descriptor = descriptor;
+        this.method = descriptor.getMethod();
+        this.parsers = parsers;
+        this.context = context;
+    }
+
+    public CommandExecute(BaseCommand command, MethodDescriptor descriptor, CommandContext context) {
+        this(command, descriptor, (List<Object>) null, context);
+    }
+
+    public CommandExecute(BaseCommand command, Method method, List<Object> parameters, CommandContext context) {
+        this(command, command.getDescriptor().getMethod(method), parameters, context);
+    }
+
     public CommandExecute(BaseCommand command, Method method, CommandContext context) {
         this(command, method, null, context);
     }
 
+    /**
+     * Return the parameters passed after any leading arguments
+     */
+    public List<Object> getParameters() {
+        if (parameters == null) {
+            List<Object> result = new ArrayList<>(parsers.length);
+            for (Parser parser : parsers) {
+                try {
+                    result.add(parser.getResult());
+                } catch (ParserInvalidResultException e) {
+                    result.add(null);
+                }
+            }
+            parameters = result;
+        }
+
+        return parameters;
+    }
+
+    /**
+     * Execute method, prepending arg and filling missing parameters with null
+     */
+    public Object invoke(Object arg) {
+        if (parsers != null) {
+            return invoke(new Object[]{arg});
+        }
+
+        List<Object> parameters = getParameters();
+        Object[] param = new Object[Math.max(method.getParameterCount(), parameters.size() + 1)];
+        param[0] = arg;
+        for (int i = 0; i < parameters.size(); i++) {
+            param[i + 1] = parameters.get(i);
+        }
+
+        return call(param);
+    }
+
     /**
      * Execute method, prepending args and filling missing parameters with null
      */
     public Object invoke(Object... args) {
-        List<Object> param = new ArrayList<>(Arrays.asList(args));
-        param.addAll(parameters);
+        if (parsers != null) {
+            MethodHandle binder = descriptor.getBinder(args.length, parsers.length);
+            if (binder != null) {
+                try {
+                    return binder.invokeExact((Object) command, parsers, args);
+                } catch (Throwable e) {
+                    report(e, args);
+                    return null;
+                }
+            }
+        }
 
-        // Fill out extra parameters with null
-        while (param.size() < method.getParameterCount()) {
-            param.add(null);
+        List<Object> parameters = getParameters();
+        Object[] param = new Object[Math.max(method.getParameterCount(), parameters.size() + args.length)];
+        System.arraycopy(args, 0, param, 0, args.length);
+        for (int i = 0; i < parameters.size(); i++) {
+            param[i + args.length] = parameters.get(i);
         }
 
+        return call(param);
+    }
+
+    private Object call(Object[] param) {
         try {
-            return method.invoke(command, param.toArray());
-        } catch (IllegalArgumentException | IllegalAccessException | InvocationTargetException e) {
-            System.err.println(
-                    "Error executing Command: " +
-                            command.getClass().getName() + "." + method.getName() +
-                            "(" + Arrays.stream(method.getParameterTypes()).map(Class::getName).collect(Collectors.joining(", ")) + ")" +
-                            " called with (" + param.stream().map(c -> c.getClass().getName()).collect(Collectors.joining(", ")) + ")");
-
-            e.printStackTrace();
+            return descriptor.getInvoker().invokeExact((Object) command, param);
+        } catch (Throwable e) {
+            report(e, param);
         }
         return null;
     }
 
+    private void report(Throwable e, Object[] leading) {
+        List<Object> param = new ArrayList<>(Arrays.asList(leading));
+        if (parsers != null) {
+            param.addAll(getParameters());
+        }
+
+        System.err.println(
+                "Error executing Command: " +
+                        command.getClass().getName() + "." + method.getName() +
+                        "(" + Arrays.stream(method.getParameterTypes()).map(Class::getName).collect(Collectors.joining(", ")) + ")" +
+                        " called with (" + param.stream().map(c -> c != null ? c.getClass().getName() : "null").collect(Collectors.joining(", ")) + ")");
+
+        e.printStackTrace();
+    }
+
     @Override
     public String toString() {
         return getClass().getName() + "(command=" + command +
                 ", method=" + method +
-                ", parameters=" + parameters +
+                ", parameters=" + getParameters() +
                 ")";
 
 
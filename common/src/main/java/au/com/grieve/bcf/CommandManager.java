@@ -25,14 +25,20 @@ package au.com.grieve.bcf;
 
 import au.com.grieve.bcf.annotations.Command;
 import au.com.grieve.bcf.parsers.*;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 @Getter
 public abstract class CommandManager<
@@ -40,15 +46,70 @@ public abstract class CommandManager<
         RT extends CommandRoot
         > {
 
-    protected final Map<Class<? extends BaseCommand>, CommandConfig<RT>> commands = new HashMap<>();
-    protected final Map<String, Class<? extends Parser>> parsers = new HashMap<>();
+    // Registered commands and parsers, replaced as a whole on every change so readers never need a lock
+    @Getter(AccessLevel.NONE)
+    protected volatile Registry<RT> registry = new Registry<>(Collections.emptyMap(), Collections.emptyMap());
+
+    // Held while replacing the registry
+    @Getter(AccessLevel.NONE)
+    private final Object registryLock = new Object();
+
+    // Used for anything not starting with @
+    protected final ParserFactory literalParser = LiteralParser::new;
+
+    // Last completion of each sender
+    protected final CompletionCache completionCache = new CompletionCache();
+
+    // Completions shared between senders
+    protected final SharedCompletionCache sharedCompletionCache = new SharedCompletionCache();
+
+    // Permission decisions of each sender
+    protected final PermissionCache permissionCache = new PermissionCache();
+
+    // Most candidates returned by a completion
+    @Setter
+    protected int completionLimit = 100;
+
+    // Milliseconds a platform allows for a tab completion, or 0 for no limit. Defaults to one server tick.
+    @Setter
+    protected long completionTimeout = 50;
+
+    /**
+     * Return true if called on a thread that must never wait on another, such as the main thread of a server
+     */
+    public boolean isMainThread() {
+        return false;
+    }
+
+    /**
+     * Return a new deadline for a tab completion
+     */
+    public Deadline getCompletionDeadline() {
+        return completionTimeout > 0 ? Deadline.after(completionTimeout, TimeUnit.MILLISECONDS) : Deadline.NONE;
+    }
 
     public CommandManager() {
         // Register Default Parsers
-        registerParser("string", StringParser.class);
-        registerParser("int", IntegerParser.class);
-        registerParser("double", DoubleParser.class);
-        registerParser("float", FloatParser.class);
+        registerParser("string", StringParser::new);
+        registerParser("int", IntegerParser::new);
+        registerParser("long", LongParser::new);
+        registerParser("double", DoubleParser::new);
+        registerParser("float", FloatParser::new);
+        registerParser("decimal", DecimalParser::new);
+    }
+
+    /**
+     * Return the registered commands. The map is read only and is replaced when commands are registered.
+     */
+    public Map<Class<? extends BaseCommand>, CommandConfig<RT>> getCommands() {
+        return registry.commands;
+    }
+
+    /**
+     * Return the registered parsers. The map is read only and is replaced when parsers are registered.
+     */
+    public Map<String, ParserFactory> getParsers() {
+        return registry.parsers;
     }
 
     @SuppressWarnings("unused")
@@ -58,72 +119,261 @@ public abstract class CommandManager<
             throw new RuntimeException("Missing required @Command");
         }
 
-        CommandConfig<RT> commandConfig = commands.getOrDefault(cmd.getClass(), new CommandConfig<>());
+        synchronized (registryLock) {
+            checkParsers(cmd.getDescriptor());
 
-        commandConfig.setCommandRoot(createCommandRoot(cmd));
+            Map<Class<? extends BaseCommand>, CommandConfig<RT>> commands = new HashMap<>(registry.commands);
 
-        commandConfig.getInstances().add(cmd);
-        commands.put(cmd.getClass(), commandConfig);
+            CommandConfig<RT> commandConfig = commands.getOrDefault(cmd.getClass(), new CommandConfig<>(cmd.getDescriptor()));
+            commands.put(cmd.getClass(), commandConfig
+                    .withCommandRoot(createCommandRoot(cmd))
+                    .withInstance(cmd));
+
+            registry = registry.withCommands(commands);
+        }
+
+        // Roots compile again when next used, and completions may have come from the previous commands
+        sharedCompletionCache.invalidateAll();
     }
 
     @SuppressWarnings("unused")
     public void registerSubCommand(Class<? extends BC> parentClass, BC cmd) {
-        // Make sure parentClass is registered
-        CommandConfig<RT> parentCommandConfig = commands.get(parentClass);
+        synchronized (registryLock) {
+            checkParsers(cmd.getDescriptor());
 
-        if (parentCommandConfig == null) {
-            throw new RuntimeException("Parent class is not registered");
-        }
+            Map<Class<? extends BaseCommand>, CommandConfig<RT>> commands = new HashMap<>(registry.commands);
 
-        parentCommandConfig.getChildren().add(cmd);
+            // Make sure parentClass is registered
+            CommandConfig<RT> parentCommandConfig = commands.get(parentClass);
 
-        // If cmd has @Command, it is a CommandRoot
-        CommandConfig<RT> commandConfig = commands.getOrDefault(cmd.getClass(), new CommandConfig<>());
-        if (cmd.getClass().getAnnotation(Command.class) != null) {
-            commandConfig.setCommandRoot(createCommandRoot(cmd));
+            if (parentCommandConfig == null) {
+                throw new RuntimeException("Parent class is not registered");
+            }
+
+            commands.put(parentClass, parentCommandConfig.withChild(cmd));
+
+            // If cmd has @Command, it is a CommandRoot
+            CommandConfig<RT> commandConfig = commands.getOrDefault(cmd.getClass(), new CommandConfig<>(cmd.getDescriptor()));
+            if (cmd.getClass().getAnnotation(Command.class) != null) {
+                commandConfig = commandConfig.withCommandRoot(createCommandRoot(cmd));
+            }
+
+            commands.put(cmd.getClass(), commandConfig.withInstance(cmd));
+
+            registry = registry.withCommands(commands);
         }
 
-        commandConfig.getInstances().add(cmd);
-        commands.put(cmd.getClass(), commandConfig);
+        // Roots compile again when next used, and completions may have come from the previous commands
+        sharedCompletionCache.invalidateAll();
     }
 
     protected abstract RT createCommandRoot(BaseCommand cmd);
 
-    public Parser getParser(ArgNode argNode, CommandContext context) {
-        Class<? extends Parser> cls;
-        if (argNode.getName().startsWith("@")) {
-            cls = getParsers().getOrDefault(argNode.getName().substring(1), LiteralParser.class);
-        } else {
-            cls = LiteralParser.class;
+    /**
+     * Throw if any @Arg of a command uses a parser that isn't registered
+     */
+    protected void checkParsers(CommandDescriptor descriptor) {
+        ArgNode unknown = findUnknownParser(descriptor, registry.parsers);
+        if (unknown != null) {
+            throw new IllegalArgumentException("Unknown parser " + unknown.getName() + " in " + descriptor.getCommandClass().getName());
         }
+    }
 
-        try {
-            return cls
-                    .getConstructor(CommandManager.class, ArgNode.class, CommandContext.class)
-                    .newInstance(this, argNode, context);
-        } catch (InstantiationException | NoSuchMethodException | InvocationTargetException |
-                 IllegalAccessException e) {
-            e.printStackTrace();
+    /**
+     * Return the first node of a command using a parser not in parsers, or null if there is none
+     */
+    private static ArgNode findUnknownParser(CommandDescriptor descriptor, Map<String, ParserFactory> parsers) {
+        List<List<ArgNode>> chains = new ArrayList<>(descriptor.getArgs());
+        for (MethodDescriptor method : descriptor.getMethods()) {
+            chains.addAll(method.getArgs());
         }
+
+        for (List<ArgNode> chain : chains) {
+            for (ArgNode argNode : chain) {
+                if (argNode.getName().startsWith("@") && !parsers.containsKey(argNode.getName().substring(1))) {
+                    return argNode;
+                }
+            }
+        }
+
         return null;
     }
 
+    /**
+     * Return the descriptor of a command class
+     */
+    public CommandDescriptor getDescriptor(Class<? extends BaseCommand> cls) {
+        CommandConfig<RT> commandConfig = registry.commands.get(cls);
+        return commandConfig != null ? commandConfig.getDescriptor() : CommandDescriptor.of(cls);
+    }
+
+    public Parser getParser(ArgNode argNode, CommandContext context) {
+        return getDefinition(argNode).newParser(context);
+    }
+
+    /**
+     * Return the definition of the parser for a node, created the first time it is asked for since parsers were last
+     * registered
+     */
+    public ParserDefinition getDefinition(ArgNode argNode) {
+        Registry<RT> current = registry;
+
+        ParserDefinition definition = current.definitions.get(argNode);
+        if (definition == null) {
+            ParserFactory factory;
+            if (argNode.getName().startsWith("@")) {
+                // Registered commands are checked, so this is only reached for a node of no command
+                factory = current.parsers.get(argNode.getName().substring(1));
+                if (factory == null) {
+                    throw new IllegalArgumentException("Unknown parser " + argNode.getName());
+                }
+            } else {
+                factory = literalParser;
+            }
+
+            definition = new ParserDefinition(this, argNode, factory);
+            ParserDefinition existing = current.definitions.putIfAbsent(argNode, definition);
+            if (existing != null) {
+                definition = existing;
+            }
+        }
+
+        return definition;
+    }
+
+    public void registerParser(String name, ParserFactory factory) {
+        registerParsers(Collections.singletonMap(name, factory));
+    }
+
+    /**
+     * Register several parsers by name at once
+     */
+    public void registerParsers(Map<String, ParserFactory> factories) {
+        synchronized (registryLock) {
+            Map<String, ParserFactory> parsers = new HashMap<>(registry.parsers);
+            parsers.putAll(factories);
+            registry = registry.withParsers(parsers);
+        }
+
+        // Completions may have come from the replaced parser
+        sharedCompletionCache.invalidateAll();
+    }
+
+    /**
+     * Register a parser class. It must have a public constructor taking (CommandManager, ArgNode, CommandContext).
+     */
     public void registerParser(String name, Class<? extends Parser> parser) {
-        this.parsers.put(name, parser);
+        MethodHandle constructor;
+        try {
+            constructor = MethodHandles.publicLookup()
+                    .findConstructor(parser, MethodType.methodType(void.class, CommandManager.class, ArgNode.class, CommandContext.class))
+                    .asType(MethodType.methodType(Parser.class, CommandManager.class, ArgNode.class, CommandContext.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException("Parser " + parser.getName() + " has no public constructor (CommandManager, ArgNode, CommandContext)", e);
+        }
+
+        registerParser(name, (manager, argNode, context) -> {
+            try {
+                return (Parser) constructor.invokeExact(manager, argNode, context);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new RuntimeException("Unable to create parser " + parser.getName(), e);
+            }
+        });
     }
 
+    /**
+     * Unregister a parser. It can't be unregistered while a registered command uses it.
+     */
     @SuppressWarnings("unused")
     public void unregisterParser(String name) {
-        this.parsers.remove(name);
+        synchronized (registryLock) {
+            Map<String, ParserFactory> parsers = new HashMap<>(registry.parsers);
+            parsers.remove(name);
+
+            for (CommandConfig<RT> commandConfig : registry.commands.values()) {
+                if (findUnknownParser(commandConfig.getDescriptor(), parsers) != null) {
+                    throw new IllegalStateException("Parser @" + name + " is used by " + commandConfig.getDescriptor().getCommandClass().getName());
+                }
+            }
+
+            registry = registry.withParsers(parsers);
+        }
+
+        // Completions may have come from the replaced parser
+        sharedCompletionCache.invalidateAll();
+    }
+
+    /**
+     * Registered commands and parsers. Never changed once created apart from caching the definitions of parsers.
+     */
+    protected static class Registry<RT> {
+        final Map<Class<? extends BaseCommand>, CommandConfig<RT>> commands;
+        final Map<String, ParserFactory> parsers;
+
+        // Parser definitions by node, filled as they are used
+        final Map<ArgNode, ParserDefinition> definitions = new ConcurrentHashMap<>();
+
+        Registry(Map<Class<? extends BaseCommand>, CommandConfig<RT>> commands, Map<String, ParserFactory> parsers) {
+            this.commands = Collections.unmodifiableMap(new HashMap<>(commands));
+            this.parsers = Collections.unmodifiableMap(new HashMap<>(parsers));
+        }
+
+        Registry<RT> withCommands(Map<Class<? extends BaseCommand>, CommandConfig<RT>> commands) {
+            Registry<RT> result = new Registry<>(commands, parsers);
+            result.definitions.putAll(definitions);
+            return result;
+        }
+
+        private Registry(Registry<RT> previous, Map<String, ParserFactory> parsers) {
+            // Tries compiled from the same commands stay current
+            this.commands = previous.commands;
+            this.parsers = Collections.unmodifiableMap(new HashMap<>(parsers));
+        }
+
+        Registry<RT> withParsers(Map<String, ParserFactory> parsers) {
+            return new Registry<>(this, parsers);
+        }
     }
 
+    /**
+     * A registered command class. Never changed once created, the with methods return a changed copy.
+     */
     @Getter
     protected static class CommandConfig<RT> {
-        private final List<BaseCommand> instances = new ArrayList<>();
-        private final List<BaseCommand> children = new ArrayList<>();
-        @Setter
-        private RT commandRoot;
-    }
+        private final CommandDescriptor descriptor;
+        private final List<BaseCommand> instances;
+        private final List<BaseCommand> children;
+        private final RT commandRoot;
 
+        public CommandConfig(CommandDescriptor descriptor) {
+            this(descriptor, Collections.emptyList(), Collections.emptyList(), null);
+        }
 
+        private CommandConfig(CommandDescriptor descriptor, List<BaseCommand> instances, List<BaseCommand> children, RT commandRoot) {
+            this.descriptor = descriptor;
+            this.instances = instances;
+            this.children = children;
+            this.commandRoot = commandRoot;
+        }
+
+        public CommandConfig<RT> withInstance(BaseCommand instance) {
+            return new CommandConfig<>(descriptor, append(instances, instance), children, commandRoot);
+        }
+
+        public CommandConfig<RT> withChild(BaseCommand child) {
+            return new CommandConfig<>(descriptor, instances, append(children, child), commandRoot);
+        }
+
+        public CommandConfig<RT> withCommandRoot(RT commandRoot) {
+            return new CommandConfig<>(descriptor, instances, children, commandRoot);
+        }
+
+        private static List<BaseCommand> append(List<BaseCommand> list, BaseCommand value) {
+            List<BaseCommand> result = new ArrayList<>(list);
+            result.add(value);
+            return Collections.unmodifiableList(result);
+        }
+    }
 }
@@ -23,16 +23,18 @@
 
 package au.com.grieve.bcf;
 
-import au.com.grieve.bcf.annotations.Arg;
-import au.com.grieve.bcf.annotations.Default;
-import au.com.grieve.bcf.annotations.Error;
+import au.com.grieve.bcf.exceptions.ParserException;
 import au.com.grieve.bcf.exceptions.ParserInvalidResultException;
 import au.com.grieve.bcf.exceptions.ParserRequiredArgumentException;
 import au.com.grieve.bcf.exceptions.SwitchNotFoundException;
 import lombok.Getter;
+import lombok.Setter;
 
-import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -42,22 +44,111 @@ public class CommandRoot {
 
     private final CommandManager<?, ?> manager;
 
+    // Replaced as a whole when recompiled
+    private volatile DispatchTrie trie;
+
+    // Decides which commands and methods can be reached before their input is parsed
+    @Setter
+    private NodeFilter nodeFilter = NodeFilter.ALLOW;
+
     public CommandRoot(CommandManager<?, ?> manager, BaseCommand cmd) {
         this.manager = manager;
         this.command = cmd;
     }
 
+    /**
+     * Compile the @Arg of our command and its sub-commands
+     */
+    protected void compile() {
+        trie = new DispatchTrie(manager, command);
+    }
+
+    /**
+     * Return the compiled trie, compiling it again if commands were registered since it was last compiled
+     */
+    public DispatchTrie getTrie() {
+        DispatchTrie current = trie;
+        if (current == null || current.getCommands() != manager.getCommands()) {
+            compile();
+            current = trie;
+        }
+        return current;
+    }
+
     protected Parser getParser(ArgNode argNode, CommandContext context) {
         return manager.getParser(argNode, context);
 
     }
 
+    /**
+     * Execute a command line, splitting it with {@link Tokenizer}
+     */
+    public CommandExecute execute(String input, CommandContext context) {
+        return execute(Tokenizer.tokenize(input, false), context);
+    }
+
+    /**
+     * Complete a command line, splitting it with {@link Tokenizer}
+     */
+    public List<Candidate> complete(String input, CommandContext context) {
+        return complete(Tokenizer.tokenize(input, true), context);
+    }
+
+    /**
+     * Complete a command line on executor
+     * <p>
+     * The future is completed with whatever candidates have been found by the time deadline expires. It is also
+     * available to parsers through the context so they can stop early.
+     */
+    public CompletableFuture<List<Candidate>> completeAsync(String input, CommandContext context, Executor executor, Deadline deadline) {
+        return completeAsync(Tokenizer.tokenize(input, true), context, executor, deadline);
+    }
+
+    public CompletableFuture<List<Candidate>> completeAsync(List<String> input, CommandContext context, Executor executor, Deadline deadline) {
+        CompletableFuture<List<Candidate>> future = new CompletableFuture<>();
+        CompletionSink ret = newCompletionSink();
+
+        CommandContext currentContext = context.copy();
+        currentContext.setDeadline(deadline);
+
+        try {
+            executor.execute(() -> {
+                try {
+                    complete(getTrie().getRoot(), new ArgumentReader(input), currentContext, ret);
+                    future.complete(ret.getCandidates());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        // Return what we have once out of time
+        ScheduledFuture<?> expiry = deadline.onExpiry(() -> future.complete(ret.getCandidates()));
+
+        if (expiry != null) {
+            future.whenComplete((r, e) -> expiry.cancel(false));
+        }
+
+        return future;
+    }
+
     public CommandExecute execute(List<String> input, CommandContext context) {
-        return execute(command, input, context);
+        return execute(getTrie().getRoot(), new ArgumentReader(input), context);
     }
 
     public List<Candidate> complete(List<String> input, CommandContext context) {
-        return complete(command, input, context);
+        return complete(getTrie().getRoot(), new ArgumentReader(input), context);
+    }
+
+    /**
+     * Complete into sink, which decides how many candidates to keep and their order
+     */
+    public List<Candidate> complete(List<String> input, CommandContext context, CompletionSink sink) {
+        complete(getTrie().getRoot(), new ArgumentReader(input), context, sink);
+        return sink.getCandidates();
     }
 
     protected CommandExecute getErrorExecute(BaseCommand command, String message, CommandContext context) {
@@ -67,8 +158,9 @@ public class CommandRoot {
                         context.getCommandStack().stream()
                 ).collect(Collectors.toList())
         ) {
-            if (cmd.getErrorMethod() != null) {
-                return new CommandExecute(cmd, cmd.getErrorMethod(), Collections.singletonList(message), context);
+            MethodDescriptor errorMethod = manager.getDescriptor(cmd.getClass()).getErrorMethod();
+            if (errorMethod != null) {
+                return new CommandExecute(cmd, errorMethod, Collections.singletonList(message), context);
             }
         }
         return null;
@@ -81,376 +173,490 @@ public class CommandRoot {
                         context.getCommandStack().stream()
                 ).collect(Collectors.toList())
         ) {
-            if (cmd.getDefaultMethod() != null) {
-                return new CommandExecute(cmd, cmd.getDefaultMethod(), context);
+            MethodDescriptor defaultMethod = manager.getDescriptor(cmd.getClass()).getDefaultMethod();
+            if (defaultMethod != null && nodeFilter.testMethod(cmd, defaultMethod, context)) {
+                return new CommandExecute(cmd, defaultMethod, context);
             }
         }
         return null;
     }
 
     public CommandExecute execute(BaseCommand command, List<String> input, CommandContext context) {
-        List<CommandExecute> commandExecutes = new ArrayList<>();
+        DispatchTrie.Scope scope = getTrie().getScope(command);
+        return scope != null ? execute(scope, new ArgumentReader(input), context) : null;
+    }
 
-        // Go through class Args first if they exist, as long as they are not on our commandRoot class (to allow @Commands to override @Args)
-        if (command.getClass().getAnnotationsByType(Arg.class).length > 0) {
-            for (Arg classArgs : command.getClass().getAnnotationsByType(Arg.class)) {
-                List<String> currentInput = new ArrayList<>(input);
-                List<ArgNode> currentArgs = ArgNode.parse(String.join(" ", classArgs.value()));
-                CommandContext currentContext = context.copy();
+    protected CommandExecute execute(DispatchTrie.Scope scope, ArgumentReader input, CommandContext context) {
+        if (!nodeFilter.testCommand(scope.command, context)) {
+            return null;
+        }
 
-                try {
-                    parseArg(currentArgs, currentInput, currentContext);
-                } catch (ParserRequiredArgumentException e) {
-                    continue;
-                } catch (SwitchNotFoundException e) {
-                    commandExecutes.add(getErrorExecute(command, "Invalid switch: " + e.getSwitchName(), currentContext));
-                    continue;
-                } catch (ParserInvalidResultException e) {
-                    commandExecutes.add(getErrorExecute(command, e.getMessage(), currentContext));
-                    continue;
-                }
+        Selection selection = new Selection();
+        execute(scope, scope.classNode, input, withMemo(context), false, selection);
 
-                // Process methods
-                for (Method method : command.getClass().getDeclaredMethods()) {
-                    commandExecutes.add(executeMethod(method, command, currentInput, currentContext));
-                }
+        // If we have no best then send to default
+        CommandExecute best = selection.best;
+        if (best == null) {
+            best = getDefaultExecute(scope.command, context);
+        }
 
-                // Check each child class as well
-                CommandManager.CommandConfig<?> cc = manager.getCommands().get(command.getClass());
-                currentContext.getCommandStack().push(command);
+        return best;
+    }
 
-                if (cc != null) {
-                    for (BaseCommand child : cc.getChildren()) {
-                        commandExecutes.add(execute(child, currentInput, currentContext));
-                    }
-                }
-            }
-        } else {
-            List<String> currentInput = new ArrayList<>(input);
+    /**
+     * Execution for the methods and children of a command once its class @Arg have been parsed
+     */
+    protected CommandExecute executeBody(DispatchTrie.Scope scope, ArgumentReader input, CommandContext context) {
+        Selection selection = new Selection();
+        execute(scope, scope.methodNode, input, context, true, selection);
+
+        // Check each child class as well
+        context.pushCommand(scope.command);
+
+        int ordinal = scope.childOrdinal;
+        for (DispatchTrie.Scope child : scope.children) {
+            selection.offer(execute(child, input, context), ordinal++);
+        }
+
+        return selection.best;
+    }
+
+    /**
+     * Walk a node of the trie offering each possible execute
+     */
+    protected void execute(DispatchTrie.Scope scope, DispatchTrie.Node node, ArgumentReader input, CommandContext context, boolean body, Selection selection) {
+        if (!node.leaves.isEmpty() && (!body || hasAllowedLeaf(scope, node, context))) {
+            ArgumentReader currentInput = input.copy();
             CommandContext currentContext = context.copy();
+            int ordinal = node.leaves.get(0).ordinal;
 
-            // Process methods
-            for (Method method : command.getClass().getDeclaredMethods()) {
-                commandExecutes.add(executeMethod(method, command, currentInput, currentContext));
-            }
+            try {
+                if (body) {
+                    parseSwitches(currentInput, currentContext, true);
+
+                    if (!currentInput.hasNext()) {
+                        // No more input so see if we can parse all parsers and check their results
+                        List<Parser> parsers = currentContext.getParsers();
+                        Parser[] results = new Parser[parsers.size()];
+                        int count = 0;
+                        for (Parser parser : parsers) {
+                            if (!parser.isParsed()) {
+                                parser.parse(null, true);
+                            }
+                            if (!parser.isSuppressed()) {
+                                parser.validate();
+                                results[count++] = parser;
+                            }
+                        }
 
-            // Check each child class as well
-            CommandManager.CommandConfig<?> cc = manager.getCommands().get(command.getClass());
-            currentContext.getCommandStack().push(command);
+                        if (count < results.length) {
+                            results = Arrays.copyOf(results, count);
+                        }
 
-            if (cc != null) {
-                for (BaseCommand child : cc.getChildren()) {
-                    commandExecutes.add(execute(child, currentInput, currentContext));
+                        for (DispatchTrie.Leaf leaf : node.leaves) {
+                            if (nodeFilter.testMethod(scope.command, leaf.method, currentContext)) {
+                                selection.offer(new CommandExecute(scope.command, leaf.method, results, currentContext), leaf.ordinal);
+                            }
+                        }
+                    }
+                } else {
+                    if (scope.classArgs) {
+                        parseSwitches(currentInput, currentContext, true);
+                    }
+
+                    selection.offer(executeBody(scope, currentInput, currentContext), ordinal);
                 }
+            } catch (ParserRequiredArgumentException ignored) {
+            } catch (SwitchNotFoundException e) {
+                selection.offer(getErrorExecute(scope.command, "Invalid switch: " + e.getSwitchName(), currentContext), ordinal);
+            } catch (ParserInvalidResultException e) {
+                selection.offer(getErrorExecute(scope.command, e.getMessage(), currentContext), ordinal);
             }
         }
 
-        // Return best execute
-        CommandExecute best = null;
-        for (CommandExecute testExecute : commandExecutes.stream().filter(Objects::nonNull).collect(Collectors.toList())) {
-            // Always replace best when its null
-            if (best == null) {
-                best = testExecute;
+        for (DispatchTrie.Edge edge : node.select(input, false)) {
+            if (body && !isReachable(scope, edge.target, context)) {
                 continue;
             }
 
-            // A longer chain always replaces a shorter chain
-            if (best.getContext().getParsers().size() < testExecute.getContext().getParsers().size()) {
-                best = testExecute;
+            ArgumentReader currentInput = input.copy();
+            CommandContext currentContext = context.copy();
+
+            try {
+                parseNode(edge.argNode, currentInput, currentContext, true);
+            } catch (ParserRequiredArgumentException e) {
+                continue;
+            } catch (SwitchNotFoundException e) {
+                selection.offer(getErrorExecute(scope.command, "Invalid switch: " + e.getSwitchName(), currentContext), edge.getOrdinal());
+                continue;
+            } catch (ParserInvalidResultException e) {
+                selection.offer(getErrorExecute(scope.command, e.getMessage(), currentContext), edge.getOrdinal());
                 continue;
             }
 
-            // Equal chains rely on priority
-            if (best.getContext().getParsers().size() == testExecute.getContext().getParsers().size()) {
-                if (testExecute.getMethod().isAnnotationPresent(Default.class)) {
-                    continue;
-                }
+            execute(scope, edge.target, currentInput, currentContext, body, selection);
+        }
+    }
 
-                if (testExecute.getMethod().isAnnotationPresent(Error.class)) {
-                    if (!best.getMethod().isAnnotationPresent(Default.class)) {
-                        continue;
-                    }
-                }
+    public List<Candidate> complete(BaseCommand command, List<String> input, CommandContext context) {
+        DispatchTrie.Scope scope = getTrie().getScope(command);
+        return scope != null ? complete(scope, new ArgumentReader(input), context) : new ArrayList<>();
+    }
 
-                best = testExecute;
-            }
-        }
+    protected List<Candidate> complete(DispatchTrie.Scope scope, ArgumentReader input, CommandContext context) {
+        CompletionSink ret = newCompletionSink();
+        complete(scope, input, context, ret);
+        return ret.getCandidates();
+    }
 
-        // If we have no best then send to default
-        if (best == null) {
-            best = getDefaultExecute(command, context);
+    /**
+     * Return a sink keeping the managers completion limit of candidates in alphabetical order
+     */
+    protected CompletionSink newCompletionSink() {
+        return new CompletionSink(manager.getCompletionLimit());
+    }
+
+    protected void complete(DispatchTrie.Scope scope, ArgumentReader input, CommandContext context, CompletionSink ret) {
+        if (!nodeFilter.testCommand(scope.command, context)) {
+            return;
         }
 
-        return best;
+        complete(scope, scope.classNode, input, withMemo(context), null, ret);
+    }
+
+    /**
+     * Completion for the methods and children of a command once its class @Arg have been parsed
+     */
+    protected void completeBody(DispatchTrie.Scope scope, ArgumentReader input, CommandContext context, CompletionSink ret) {
+        complete(scope, scope.methodNode, input, context, input, ret);
+
+        // Check each child class as well
+        context.pushCommand(scope.command);
+
+        for (DispatchTrie.Scope child : scope.children) {
+            complete(child, input, context, ret);
+        }
     }
 
     /**
-     * Execution for methods
+     * Walk a node of the trie collecting completions
+     *
+     * @param bodyInput Input at the start of the method chains, or null when walking class @Arg
      */
-    protected CommandExecute executeMethod(Method method, BaseCommand command, List<String> input, CommandContext context) {
-        List<CommandExecute> commandExecutes = new ArrayList<>();
+    protected void complete(DispatchTrie.Scope scope, DispatchTrie.Node node, ArgumentReader input, CommandContext context, ArgumentReader bodyInput, CompletionSink ret) {
+        if (ret.isDone() || context.getDeadline().isExpired()) {
+            return;
+        }
 
-        for (Arg methodArgs : method.getAnnotationsByType(Arg.class)) {
-            List<String> currentInput = new ArrayList<>(input);
-            List<ArgNode> currentArgs = ArgNode.parse(String.join(" ", methodArgs.value()));
+        if (!node.leaves.isEmpty() && (bodyInput == null || hasAllowedLeaf(scope, node, context))) {
+            ArgumentReader currentInput = input.copy();
             CommandContext currentContext = context.copy();
 
             try {
-                parseArg(currentArgs, currentInput, currentContext);
-
-                if (currentInput.size() > 0) {
-                    continue;
+                if (bodyInput != null || scope.classArgs) {
+                    parseSwitches(currentInput, currentContext, false, ret);
                 }
 
-                // No more input so see if we can parse all parsers and get their results
-                List<Object> results = new ArrayList<>();
-                for (Parser parser : currentContext.getParsers()) {
-                    if (!parser.isParsed()) {
-                        parser.parse(null, true);
-                    }
-                    if (!parser.getParameter("suppress", "false").equals("true")) {
-                        results.add(parser.getResult());
-                    }
+                if (bodyInput == null) {
+                    completeBody(scope, currentInput, currentContext, ret);
                 }
-                commandExecutes.add(new CommandExecute(command, method, results, currentContext));
-            } catch (ParserRequiredArgumentException ignored) {
+            } catch (ParserRequiredArgumentException | ParserInvalidResultException e) {
+                completeFailure(e, currentInput, currentContext, bodyInput, ret);
             } catch (SwitchNotFoundException e) {
-                commandExecutes.add(getErrorExecute(command, "Invalid switch: " + e.getSwitchName(), currentContext));
-            } catch (ParserInvalidResultException e) {
-                commandExecutes.add(getErrorExecute(command, e.getMessage(), currentContext));
+                ret.addAll(getSwitchCompletions(currentContext, e.getSwitchName()));
             }
         }
 
-        // Return best execute
-        CommandExecute best = null;
-        for (CommandExecute testExecute : commandExecutes.stream().filter(Objects::nonNull).collect(Collectors.toList())) {
-            // Always replace best when its null
-            if (best == null) {
-                best = testExecute;
-                continue;
+        for (DispatchTrie.Edge edge : node.select(input, true)) {
+            if (ret.isDone() || context.getDeadline().isExpired()) {
+                return;
             }
 
-            // A longer chain always replaces a shorter chain
-            if (best.getContext().getParsers().size() < testExecute.getContext().getParsers().size()) {
-                best = testExecute;
+            if (bodyInput != null && !isReachable(scope, edge.target, context)) {
                 continue;
             }
 
-            // Equal chains rely on priority
-            if (best.getContext().getParsers().size() == testExecute.getContext().getParsers().size()) {
-                if (testExecute.getMethod().isAnnotationPresent(Default.class)) {
-                    continue;
-                }
-
-                if (testExecute.getMethod().isAnnotationPresent(Error.class)) {
-                    if (!best.getMethod().isAnnotationPresent(Default.class)) {
-                        continue;
-                    }
-                }
+            ArgumentReader currentInput = input.copy();
+            CommandContext currentContext = context.copy();
 
-                best = testExecute;
+            try {
+                parseNode(edge.argNode, currentInput, currentContext, false, ret);
+            } catch (ParserRequiredArgumentException | ParserInvalidResultException e) {
+                completeFailure(e, currentInput, currentContext, bodyInput, ret);
+                continue;
+            } catch (SwitchNotFoundException e) {
+                ret.addAll(getSwitchCompletions(currentContext, e.getSwitchName()));
+                continue;
             }
-        }
 
-        return best;
+            complete(scope, edge.target, currentInput, currentContext, bodyInput, ret);
+        }
     }
 
-    public List<Candidate> complete(BaseCommand command, List<String> input, CommandContext context) {
-        List<Candidate> ret = new ArrayList<>();
+    /**
+     * Return the filter fingerprint of a sender, kept in the permission cache so the whole trie is only tested once
+     * until their permissions are next checked
+     */
+    public BitSet getFilterFingerprint(Object sender, CommandContext context) {
+        if (nodeFilter == NodeFilter.ALLOW || sender == null) {
+            return getFilterFingerprint(context);
+        }
 
-        // Go through class Args first as long as it's not our commandroot command to allow @Command to override @Args
-        if (command.getClass().getAnnotationsByType(Arg.class).length > 0) {
-            for (Arg classArgs : command.getClass().getAnnotationsByType(Arg.class)) {
-                List<String> currentInput = new ArrayList<>(input);
-                List<ArgNode> currentArgs = ArgNode.parse(String.join(" ", classArgs.value()));
-                CommandContext currentContext = context.copy();
+        // Registering commands or changing the filter needs a new fingerprint
+        List<Object> key = Arrays.asList(this, getTrie(), nodeFilter);
+        return manager.getPermissionCache().remember(sender, key, () -> getFilterFingerprint(context));
+    }
 
+    /**
+     * Return what the node filter allows for context as bits, one for each command and method in a fixed order
+     * <p>
+     * Contexts with the same fingerprint reach the same parts of the trie.
+     */
+    public BitSet getFilterFingerprint(CommandContext context) {
+        BitSet result = new BitSet();
+        if (nodeFilter == NodeFilter.ALLOW) {
+            return result;
+        }
 
-                try {
-                    parseArg(currentArgs, currentInput, currentContext, false);
-                } catch (ParserRequiredArgumentException | ParserInvalidResultException e) {
-                    // End of chain so save completions if no more input
-                    if (currentInput.size() == 0) {
-                        ret.addAll(e.getParser().getCompletions());
-                    }
-                    continue;
-                } catch (SwitchNotFoundException e) {
-                    // List switch options
-                    ret.addAll(currentContext.getSwitches().stream()
-                            .flatMap(sw -> Arrays.stream(sw.getParameter("switch").split("\\|"))
-                                    .filter(s -> s.toLowerCase().startsWith(e.getSwitchName().toLowerCase()))
-                                    .map(s -> new Object() {
-                                        final String name = s;
-                                        final Parser parser = sw;
-                                    })
-                                    .limit(1)
-                            )
-                            .limit(20)
-                            .map(so -> new Candidate("-" + so.name, "-" + so.name, so.parser.getParameter("description", null), null))
-                            .collect(Collectors.toList())
-                    );
-                    continue;
-                }
+        int bit = 0;
+        for (DispatchTrie.Scope scope : getTrie().getScopeList()) {
+            result.set(bit++, nodeFilter.testCommand(scope.command, context));
+            for (MethodDescriptor method : scope.descriptor.getMethods()) {
+                result.set(bit++, nodeFilter.testMethod(scope.command, method, context));
+            }
+        }
 
-                // Process methods
-                for (Method method : command.getClass().getDeclaredMethods()) {
-                    ret.addAll(completeMethod(method, command, currentInput, currentContext));
-                }
+        return result;
+    }
 
-                // Check each child class as well
-                CommandManager.CommandConfig<?> cc = manager.getCommands().get(command.getClass());
-                currentContext.getCommandStack().push(command);
+    /**
+     * Return true if the filter allows any method with a chain through node
+     */
+    protected boolean isReachable(DispatchTrie.Scope scope, DispatchTrie.Node node, CommandContext context) {
+        if (nodeFilter == NodeFilter.ALLOW) {
+            return true;
+        }
 
-                if (cc != null) {
-                    for (BaseCommand child : cc.getChildren()) {
-                        ret.addAll(complete(child, currentInput, currentContext));
-                    }
-                }
+        for (MethodDescriptor method : node.methods) {
+            if (nodeFilter.testMethod(scope.command, method, context)) {
+                return true;
             }
-        } else {
-            List<String> currentInput = new ArrayList<>(input);
-            CommandContext currentContext = context.copy();
+        }
 
-            // Process methods
-            for (Method method : command.getClass().getDeclaredMethods()) {
-                ret.addAll(completeMethod(method, command, currentInput, currentContext));
-            }
+        return false;
+    }
 
-            // Check each child class as well
-            CommandManager.CommandConfig<?> cc = manager.getCommands().get(command.getClass());
-            currentContext.getCommandStack().push(command);
+    /**
+     * Return true if the filter allows any method with a chain ending at node
+     */
+    protected boolean hasAllowedLeaf(DispatchTrie.Scope scope, DispatchTrie.Node node, CommandContext context) {
+        if (nodeFilter == NodeFilter.ALLOW) {
+            return true;
+        }
 
-            if (cc != null) {
-                for (BaseCommand child : cc.getChildren()) {
-                    ret.addAll(complete(child, currentInput, currentContext));
-                }
+        for (DispatchTrie.Leaf leaf : node.leaves) {
+            if (nodeFilter.testMethod(scope.command, leaf.method, context)) {
+                return true;
             }
         }
 
-        // Remove duplicates and order alphabetically
-        ret = new ArrayList<>(new HashSet<>(ret));
-        ret.sort(Comparator.comparing(s -> s.getTitle().toLowerCase()));
-
-        return ret;
+        return false;
     }
 
     /**
-     * Completion for methods
+     * A chain ending on a parser that could not be parsed offers that parsers completions
      */
-    protected List<Candidate> completeMethod(Method method, BaseCommand command, List<String> input, CommandContext context) {
-        List<Candidate> ret = new ArrayList<>();
-        for (Arg methodArgs : method.getAnnotationsByType(Arg.class)) {
-            List<String> currentInput = new ArrayList<>(input);
-            List<ArgNode> currentArgs = ArgNode.parse(String.join(" ", methodArgs.value()));
-            CommandContext currentContext = context.copy();
-
-            try {
-                parseArg(currentArgs, currentInput, currentContext, false);
-            } catch (ParserRequiredArgumentException | ParserInvalidResultException e) {
-                // End of chain so save completion if no more input
-                if (currentInput.size() == 0) {
-                    ret.addAll(e.getParser().getCompletions());
-
-                    if (currentContext.getCurrentParser().getParameter("switch", null) == null) {
-                        if (currentInput.stream().allMatch(s -> s.equals("")) && (input.size() == 0 || input.get(input.size() - 1).equals(""))) {
-                            // Add switches
-                            ret.addAll(currentContext.getSwitches().stream()
-                                    .flatMap(sw -> Arrays.stream(sw.getParameter("switch").split("\\|"))
-                                            .map(s -> new Object() {
-                                                final String name = s;
-                                                final Parser parser = sw;
-                                            })
-                                            .limit(1)
-                                    )
-                                    .limit(20)
-                                    .map(so -> new Candidate("-" + so.name, "-" + so.name, so.parser.getParameter("description", null), null))
-                                    .collect(Collectors.toList())
-                            );
-                        }
-                    }
-
-                }
+    protected void completeFailure(ParserException e, ArgumentReader input, CommandContext context, ArgumentReader bodyInput, CompletionSink ret) {
+        // End of chain so save completions if no more input
+        if (input.hasNext()) {
+            return;
+        }
 
+        if (!e.getParser().isSenderIndependent()) {
+            ret.markSenderDependent();
+        }
+        if (!e.getParser().isCompletionExhaustive()) {
+            ret.markNotExhaustive();
+        }
+        ret.addAll(e.getParser().getCompletions());
 
-            } catch (SwitchNotFoundException e) {
-                // List switch options
-                ret.addAll(currentContext.getSwitches().stream()
-                        .flatMap(sw -> Arrays.stream(sw.getParameter("switch").split("\\|"))
-                                .filter(s -> s.toLowerCase().startsWith(e.getSwitchName().toLowerCase()))
-                                .map(s -> new Object() {
-                                    final String name = s;
-                                    final Parser parser = sw;
-                                })
-                                .limit(1)
-                        )
-                        .limit(20)
-                        .map(so -> new Candidate("-" + so.name, "-" + so.name, so.parser.getParameter("description", null), null))
-                        .collect(Collectors.toList())
-                );
+        // Method chains also offer their switches when nothing has been entered
+        if (bodyInput != null && context.getCurrentParser().getParameter("switch", null) == null) {
+            if (!bodyInput.hasNext() || bodyInput.last().equals("")) {
+                ret.addAll(getSwitchCompletions(context, null));
             }
         }
-        return ret;
     }
 
-    protected void parseArg(List<ArgNode> argNodes, List<String> input, CommandContext context) throws ParserInvalidResultException, ParserRequiredArgumentException, SwitchNotFoundException {
-        parseArg(argNodes, input, context, true);
+    /**
+     * Return the first alias of each pending switch, optionally limited to those starting with prefix
+     */
+    protected List<Candidate> getSwitchCompletions(CommandContext context, String prefix) {
+        return context.getSwitchCandidates(prefix, 20);
     }
 
-    protected void parseSwitches(List<String> input, CommandContext context, boolean defaults) throws SwitchNotFoundException, ParserRequiredArgumentException, ParserInvalidResultException {
-        while (input.size() > 0 && input.get(0).startsWith("-")) {
-            String name = input.remove(0).substring(1);
-            Parser parser = context.getSwitches().stream()
-                    .flatMap(s -> Arrays.stream(s.getParameter("switch").split("\\|"))
-                            .filter(sw -> sw.equalsIgnoreCase(name))
-                            .limit(1)
-                            .map(sw -> s)
-                    )
-                    .findFirst()
-                    .orElse(null);
+    protected void parseSwitches(ArgumentReader input, CommandContext context, boolean defaults) throws SwitchNotFoundException, ParserRequiredArgumentException, ParserInvalidResultException {
+        parseSwitches(input, context, defaults, null);
+    }
 
+    /**
+     * Parse any switches at the start of input
+     *
+     * @param sink Marked as sender dependent if any switch parser used is, or null
+     */
+    protected void parseSwitches(ArgumentReader input, CommandContext context, boolean defaults, CompletionSink sink) throws SwitchNotFoundException, ParserRequiredArgumentException, ParserInvalidResultException {
+        while (input.hasNext() && input.peek().startsWith("-")) {
+            String name = input.next().substring(1);
+            Parser pending = context.findSwitch(name);
 
-            if (parser == null) {
+            if (pending == null) {
                 throw new SwitchNotFoundException(name);
             }
 
-            context.getSwitches().remove(parser);
+            context.removeSwitch(pending);
+
+            // Pending switches are shared between branches so parse a fresh copy for this one
+            Parser parser = getParser(pending.getArgNode(), context);
+            context.replaceParser(pending, parser);
+
+            if (sink != null && !parser.isSenderIndependent()) {
+                sink.markSenderDependent();
+            }
 
             context.setCurrentParser(parser);
 
             parser.parse(input, false);
-            parser.getResult();
+            parser.validate();
         }
     }
 
-    protected void parseArg(List<ArgNode> argNodes, List<String> input, CommandContext context, boolean defaults) throws ParserRequiredArgumentException, ParserInvalidResultException, SwitchNotFoundException {
-        while (argNodes.size() > 0) {
-            ArgNode node = argNodes.remove(0);
+    /**
+     * Return a copy of context, starting a memo of parses if this is the start of a dispatch
+     */
+    protected CommandContext withMemo(CommandContext context) {
+        CommandContext result = context.copy();
+        if (result.getMemo() == null) {
+            result.setMemo(new ParseMemo());
+        }
+        return result;
+    }
+
+    /**
+     * Parse a single node of a chain
+     */
+    protected void parseNode(ArgNode node, ArgumentReader input, CommandContext context, boolean defaults) throws ParserRequiredArgumentException, ParserInvalidResultException, SwitchNotFoundException {
+        parseNode(node, input, context, defaults, null);
+    }
 
+    /**
+     * Parse a single node of a chain
+     *
+     * @param sink Marked as sender dependent if any parser used is, or null
+     */
+    protected void parseNode(ArgNode node, ArgumentReader input, CommandContext context, boolean defaults, CompletionSink sink) throws ParserRequiredArgumentException, ParserInvalidResultException, SwitchNotFoundException {
+        Parser parser = getParser(node, context);
+        context.addParser(parser);
+
+        // Take care of switches first
+        if (node.getParameters().containsKey("switch")) {
+            context.addSwitch(parser);
+            return;
+        }
 
-            Parser parser = getParser(node, context);
-            if (parser == null) {
-                break;
-            }
+        // Handle switches
+        parseSwitches(input, context, defaults, sink);
+
+        if (sink != null && !parser.isSenderIndependent()) {
+            sink.markSenderDependent();
+        }
 
-            context.getParsers().add(parser);
+        ParseMemo memo = context.getMemo();
+        if (memo == null || !parser.isReusable()) {
+            context.setCurrentParser(parser);
+            parser.parse(input, defaults);
+            parser.validate();
+            return;
+        }
 
-            // Take care of switches first
-            if (node.getParameters().containsKey("switch")) {
-                context.getSwitches().add(parser);
-            } else {
-                // Handle switches
-                parseSwitches(input, context, defaults);
+        // Reuse the parse of any other chain that reached the same words
+        int position = input.getPosition();
+        ParseMemo.Entry entry = memo.get(node, position, defaults);
 
-                context.setCurrentParser(parser);
+        if (entry == null) {
+            context.setCurrentParser(parser);
 
+            ParserException error = null;
+            try {
                 parser.parse(input, defaults);
-                parser.getResult();
+                parser.validate();
+            } catch (ParserRequiredArgumentException | ParserInvalidResultException e) {
+                error = e;
             }
+
+            entry = new ParseMemo.Entry(parser, input.getPosition(), error);
+            memo.put(node, position, defaults, entry);
+        } else {
+            context.replaceParser(parser, entry.parser);
+            context.setCurrentParser(entry.parser);
+            input.setPosition(entry.end);
         }
 
-        // Handle any remaining switches
-        parseSwitches(input, context, defaults);
+        if (entry.error instanceof ParserRequiredArgumentException) {
+            throw (ParserRequiredArgumentException) entry.error;
+        }
+        if (entry.error instanceof ParserInvalidResultException) {
+            throw (ParserInvalidResultException) entry.error;
+        }
     }
 
+    /**
+     * Keeps the best execute offered
+     * <p>
+     * A longer chain always wins. Equal chains prefer a normal method over an error over a default, and then the
+     * last normal method or the first error or default in declaration order.
+     */
+    protected static class Selection {
+        private CommandExecute best;
+        private int bestOrdinal;
+
+        public CommandExecute getBest() {
+            return best;
+        }
+
+        public void offer(CommandExecute test, int ordinal) {
+            if (test == null) {
+                return;
+            }
+
+            // Always replace best when its null
+            if (best == null) {
+                best = test;
+                bestOrdinal = ordinal;
+                return;
+            }
+
+            int bestSize = best.getContext().getParserCount();
+            int testSize = test.getContext().getParserCount();
+
+            // A longer chain always replaces a shorter chain
+            if (testSize != bestSize) {
+                if (testSize > bestSize) {
+                    best = test;
+                    bestOrdinal = ordinal;
+                }
+                return;
+            }
 
+            // Equal chains rely on priority
+            int bestPriority = best.getDescriptor().getPriority();
+            int testPriority = test.getDescriptor().getPriority();
+
+            if (testPriority == bestPriority ?
+                    (testPriority == MethodDescriptor.PRIORITY_NORMAL ? ordinal > bestOrdinal : ordinal < bestOrdinal) :
+                    testPriority > bestPriority) {
+                best = test;
+                bestOrdinal = ordinal;
+            }
+        }
+    }
 }
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2020-2022 Brendan Grieve (bundabrg) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package au.com.grieve.bcf;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the last completion of each sender
+ * <p>
+ * Clients ask for completions on nearly every keystroke. When the new line only adds to the last word of the
+ * previous line, the previous candidates are narrowed instead of walking the command again.
+ * <p>
+ * Previous candidates are only reused when every parser offering them is {@link Parser#isCompletionExhaustive()
+ * exhaustive}, every one of them started with the word being completed and there were fewer than {@link #LIMIT} of
+ * them, or the completion limit of the manager if lower. A session expires after {@link #getTimeout()} milliseconds.
+ * It also ends when the sender uses another command or changes any earlier word, or when
+ * {@link #invalidate(Object)} is called.
+ */
+public class CompletionCache {
+    public static final int LIMIT = 20;
+
+    private final Map<Object, Session> sessions = new ConcurrentHashMap<>();
+
+    // Milliseconds before a session expires
+    @Getter
+    @Setter
+    private long timeout = 5000;
+
+    /**
+     * Complete input for a sender, reusing their previous completion if possible
+     */
+    public List<Candidate> complete(Object sender, CommandRoot root, String input, CommandContext context) {
+        Tokenizer.Tokens tokens = Tokenizer.tokenize(input, true);
+        return complete(sender, root, input, input.substring(0, tokens.getStart(tokens.size() - 1)), tokens, context);
+    }
+
+    /**
+     * Complete words already split by the platform for a sender, reusing their previous completion if possible
+     */
+    public List<Candidate> complete(Object sender, CommandRoot root, List<String> input, CommandContext context) {
+        List<String> words = input.isEmpty() ? Collections.singletonList("") : input;
+
+        // Joined with a character no line contains so that it is never mistaken for a line that was split differently
+        String line = String.join("\0", words);
+        String path = line.substring(0, line.length() - words.get(words.size() - 1).length());
+        return complete(sender, root, line, path, words, context);
+    }
+
+    /**
+     * @param line  Whole input, identifying it between senders
+     * @param path  Input before the last word
+     * @param words Words of the input
+     */
+    private List<Candidate> complete(Object sender, CommandRoot root, String line, String path, List<String> words, CommandContext context) {
+        String word = words.get(words.size() - 1);
+        long now = System.currentTimeMillis();
+
+        Session session = sessions.get(sender);
+        if (session != null && session.matches(root, path, word, now - timeout)) {
+            return session.narrow(word);
+        }
+
+        CompletionSink sink = root.newCompletionSink();
+        root.getManager().getSharedCompletionCache().complete(sender, root, line, words, context, sink);
+        List<Candidate> result = sink.getCandidates();
+
+        // A completion cut short by its deadline is missing candidates
+        if (sink.isExhaustive() && !context.getDeadline().isExpired()
+                && isNarrowable(result, word, Math.min(LIMIT, root.getManager().getCompletionLimit()))) {
+            sessions.put(sender, new Session(root, path, word, result, now));
+        } else {
+            sessions.remove(sender);
+        }
+
+        return result;
+    }
+
+    /**
+     * Forget the session of a sender, such as when they disconnect
+     */
+    public void invalidate(Object sender) {
+        sessions.remove(sender);
+    }
+
+    public void invalidateAll() {
+        sessions.clear();
+    }
+
+    /**
+     * True if every candidate for a longer word will be one of these candidates
+     *
+     * @param limit Most candidates a completion returns, so a list this long may have been cut short
+     */
+    private static boolean isNarrowable(List<Candidate> candidates, String word, int limit) {
+        if (candidates.size() >= limit) {
+            return false;
+        }
+
+        for (Candidate candidate : candidates) {
+            // Candidates that don't start with the word, or just repeat it, may change as the word grows
+            if (candidate.getValue().length() <= word.length() || !startsWithIgnoreCase(candidate.getValue(), word)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean startsWithIgnoreCase(String value, String prefix) {
+        return value.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+
+    private static class Session {
+        final CommandRoot root;
+        final String path;
+        final String word;
+        final List<Candidate> candidates;
+        final long created;
+
+        Session(CommandRoot root, String path, String word, List<Candidate> candidates, long created) {
+            this.root = root;
+            this.path = path;
+            this.word = word;
+            this.candidates = candidates;
+            this.created = created;
+        }
+
+        boolean matches(CommandRoot root, String path, String word, long expiry) {
+            return this.root == root
+                    && created > expiry
+                    && this.path.equals(path)
+                    && startsWithIgnoreCase(word, this.word);
+        }
+
+        List<Candidate> narrow(String word) {
+            List<Candidate> result = new ArrayList<>();
+            for (Candidate candidate : candidates) {
+                if (startsWithIgnoreCase(candidate.getValue(), word)) {
+                    result.add(candidate);
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2020-2022 Brendan Grieve (bundabrg) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package au.com.grieve.bcf;
+
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * Collects the best candidates of a completion
+ * <p>
+ * Only the first {@code limit} candidates in order are kept, and candidates with the same value are only kept once.
+ * Without an order the first {@code limit} found are kept and completion stops once it has them. With an order, such
+ * as the default {@link #ALPHABETICAL}, any candidate found later could still be better, so completion only stops at
+ * its deadline and the limit just bounds what is kept.
+ */
+public class CompletionSink {
+    public static final Comparator<Candidate> ALPHABETICAL = Comparator.comparing(Candidate::getTitle, String.CASE_INSENSITIVE_ORDER);
+
+    @Getter
+    private final int limit;
+    private final Comparator<Candidate> order;
+
+    // Kept candidates by value
+    private final Map<String, Candidate> values = new LinkedHashMap<>();
+
+    // Kept candidates with the worst first
+    private final PriorityQueue<Candidate> worst;
+
+    // Set once a parser that depends on the sender was used
+    private volatile boolean senderDependent;
+
+    // Cleared once a parser offered completions that may not be exhaustive
+    private volatile boolean exhaustive = true;
+
+    public CompletionSink(int limit) {
+        this(limit, ALPHABETICAL);
+    }
+
+    /**
+     * @param order Order of candidates, or null to keep the first found
+     */
+    public CompletionSink(int limit, Comparator<Candidate> order) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+
+        this.limit = limit;
+        this.order = order;
+        this.worst = order != null ? new PriorityQueue<>(Math.min(limit, 64), order.reversed()) : null;
+    }
+
+    public synchronized void add(Candidate candidate) {
+        if (values.containsKey(candidate.getValue())) {
+            return;
+        }
+
+        if (values.size() < limit) {
+            values.put(candidate.getValue(), candidate);
+            if (worst != null) {
+                worst.add(candidate);
+            }
+            return;
+        }
+
+        // Replace the worst candidate if this one is better
+        if (worst == null || order.compare(candidate, worst.peek()) >= 0) {
+            return;
+        }
+
+        values.remove(worst.poll().getValue());
+        values.put(candidate.getValue(), candidate);
+        worst.add(candidate);
+    }
+
+    public void addAll(Collection<Candidate> candidates) {
+        for (Candidate candidate : candidates) {
+            add(candidate);
+        }
+    }
+
+    /**
+     * True once nothing else found could change the result, which can only happen without an order
+     */
+    public synchronized boolean isDone() {
+        return worst == null && values.size() >= limit;
+    }
+
+    /**
+     * Record that the completion used something depending on the sender, so it can't be shared
+     */
+    public void markSenderDependent() {
+        senderDependent = true;
+    }
+
+    public boolean isSenderDependent() {
+        return senderDependent;
+    }
+
+    /**
+     * Record that a parser offered completions that may be missing some of a longer word, so they can't be narrowed
+     */
+    public void markNotExhaustive() {
+        exhaustive = false;
+    }
+
+    public boolean isExhaustive() {
+        return exhaustive;
+    }
+
+    /**
+     * Return the kept candidates in order
+     */
+    public synchronized List<Candidate> getCandidates() {
+        List<Candidate> result = new ArrayList<>(values.values());
+        if (order != null) {
+            result.sort(order);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2020-2022 Brendan Grieve (bundabrg) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package au.com.grieve.bcf;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A point in time after which work should stop
+ * <p>
+ * Completion checks the deadline of its context before each step. A parser that may take a while can check
+ * {@code context.getDeadline().isExpired()} itself and return what it has.
+ */
+public class Deadline {
+    /**
+     * A deadline that never expires
+     */
+    public static final Deadline NONE = new Deadline(0);
+
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "bcf-deadline");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // System.nanoTime() of expiry
+    private final long expiry;
+
+    private Deadline(long expiry) {
+        this.expiry = expiry;
+    }
+
+    public static Deadline after(long time, TimeUnit unit) {
+        return new Deadline(System.nanoTime() + unit.toNanos(time));
+    }
+
+    public boolean isExpired() {
+        return this != NONE && System.nanoTime() - expiry >= 0;
+    }
+
+    /**
+     * Time left before expiry, which is 0 once expired
+     */
+    public long remaining(TimeUnit unit) {
+        if (this == NONE) {
+            return Long.MAX_VALUE;
+        }
+
+        return unit.convert(Math.max(0, expiry - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Run task once expired, or never for {@link #NONE}
+     *
+     * @return The scheduled task which can be cancelled, or null
+     */
+    public ScheduledFuture<?> onExpiry(Runnable task) {
+        if (this == NONE) {
+            return null;
+        }
+
+        return scheduler.schedule(task, remaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    }
+}
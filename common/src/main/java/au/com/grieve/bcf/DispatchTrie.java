@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2020-2022 Brendan Grieve (bundabrg) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package au.com.grieve.bcf;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compiled form of every class and method @Arg of a command and all of its sub-commands.
+ * <p>
+ * Chains that share a prefix share nodes. Literals are indexed by their lowercase aliases so only the matching
+ * edges are followed, every other parser is an edge keyed by its name and parameters.
+ * <p>
+ * Each chain is given an ordinal in the order it is declared so that ties between candidates are resolved the
+ * same as if every chain was walked in turn.
+ */
+public class DispatchTrie {
+    @Getter
+    private final Scope root;
+    private final Map<BaseCommand, Scope> scopes = new IdentityHashMap<>();
+
+    // Every scope in the order compiled
+    @Getter
+    private final List<Scope> scopeList = new ArrayList<>();
+
+    // Registered commands this was compiled from
+    @Getter
+    private final Map<Class<? extends BaseCommand>, ? extends CommandManager.CommandConfig<?>> commands;
+
+    public DispatchTrie(CommandManager<?, ?> manager, BaseCommand command) {
+        this.commands = manager.getCommands();
+        this.root = compile(manager, command);
+    }
+
+    /**
+     * Return the scope compiled for a command, or null if it is not part of this trie
+     */
+    public Scope getScope(BaseCommand command) {
+        return scopes.get(command);
+    }
+
+    private Scope compile(CommandManager<?, ?> manager, BaseCommand command) {
+        CommandDescriptor descriptor = manager.getDescriptor(command.getClass());
+        List<List<ArgNode>> classArgs = descriptor.getArgs();
+
+        Scope scope = new Scope(command, descriptor, classArgs.size() > 0);
+        scopes.put(command, scope);
+        scopeList.add(scope);
+
+        // A class without @Arg enters its methods straight away
+        if (classArgs.isEmpty()) {
+            scope.classNode.insert(Collections.emptyList(), null, 0);
+        }
+
+        for (int i = 0; i < classArgs.size(); i++) {
+            scope.classNode.insert(classArgs.get(i), null, i);
+        }
+
+        int ordinal = 0;
+        for (MethodDescriptor method : descriptor.getMethods()) {
+            for (List<ArgNode> methodArgs : method.getArgs()) {
+                scope.methodNode.insert(methodArgs, method, ordinal++);
+            }
+        }
+
+        // Children are ordered after all methods
+        scope.childOrdinal = ordinal;
+
+        CommandManager.CommandConfig<?> cc = commands.get(command.getClass());
+        if (cc != null) {
+            for (BaseCommand child : cc.getChildren()) {
+                scope.children.add(compile(manager, child));
+            }
+        }
+
+        return scope;
+    }
+
+    /**
+     * A command along with the trie of its class @Arg and the trie of its method @Arg
+     */
+    public static class Scope {
+        @Getter
+        final BaseCommand command;
+        @Getter
+        final CommandDescriptor descriptor;
+        final boolean classArgs;
+        final Node classNode = new Node();
+        final Node methodNode = new Node();
+        final List<Scope> children = new ArrayList<>();
+        int childOrdinal;
+
+        Scope(BaseCommand command, CommandDescriptor descriptor, boolean classArgs) {
+            this.command = command;
+            this.descriptor = descriptor;
+            this.classArgs = classArgs;
+        }
+    }
+
+    public static class Node {
+        // Switches are registered, never parsed, so are always followed
+        final List<Edge> switches = new ArrayList<>();
+
+        // Parsers that must always be tried, including literals that may match anything or need no input
+        final List<Edge> parsers = new ArrayList<>();
+
+        // Plain literals, in ordinal order, and indexed by lowercase alias
+        final List<Edge> literals = new ArrayList<>();
+        final Map<String, List<Edge>> literalIndex = new HashMap<>();
+
+        // Chains that end at this node
+        final List<Leaf> leaves = new ArrayList<>();
+
+        // Methods of every chain passing through this node
+        final List<MethodDescriptor> methods = new ArrayList<>();
+
+        // Edges that do not depend on input
+        final List<Edge> fixed = new ArrayList<>();
+        final List<Edge> all = new ArrayList<>();
+
+        // Lowest ordinal of all chains passing through this node
+        int ordinal = Integer.MAX_VALUE;
+
+        private final Map<ArgNode, Edge> edges = new HashMap<>();
+
+        void insert(List<ArgNode> chain, MethodDescriptor method, int ordinal) {
+            Node node = this;
+            node.ordinal = Math.min(node.ordinal, ordinal);
+            node.addMethod(method);
+
+            for (ArgNode argNode : chain) {
+                node = node.edge(argNode).target;
+                node.ordinal = Math.min(node.ordinal, ordinal);
+                node.addMethod(method);
+            }
+
+            node.leaves.add(new Leaf(method, ordinal));
+        }
+
+        private void addMethod(MethodDescriptor method) {
+            if (method != null && !methods.contains(method)) {
+                methods.add(method);
+            }
+        }
+
+        private Edge edge(ArgNode argNode) {
+            Edge edge = edges.get(argNode);
+            if (edge != null) {
+                return edge;
+            }
+
+            edge = new Edge(argNode, new Node());
+            edges.put(argNode, edge);
+            all.add(edge);
+
+            if (argNode.getParameters().containsKey("switch")) {
+                switches.add(edge);
+                fixed.add(edge);
+            } else if (isLiteral(argNode)) {
+                literals.add(edge);
+                for (String alias : argNode.getName().split("\\|")) {
+                    List<Edge> indexed = literalIndex.computeIfAbsent(alias.toLowerCase(Locale.ROOT), k -> new ArrayList<>());
+                    if (!indexed.contains(edge)) {
+                        indexed.add(edge);
+                    }
+                }
+            } else {
+                parsers.add(edge);
+                fixed.add(edge);
+            }
+
+            return edge;
+        }
+
+        /**
+         * A literal that can only ever match one of its own aliases
+         */
+        private static boolean isLiteral(ArgNode argNode) {
+            if (argNode.getName().startsWith("@")
+                    || argNode.getParameters().containsKey("default")
+                    || argNode.getParameters().containsKey("required")) {
+                return false;
+            }
+
+            for (String alias : argNode.getName().split("\\|")) {
+                if (alias.equals("*")) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Return the edges worth following for the input
+         * <p>
+         * When executing, the first literal that does not match is kept so that the same error is reported as if
+         * every literal was tried. When completing the last word, every literal is followed so it can offer itself.
+         */
+        List<Edge> select(ArgumentReader input, boolean complete) {
+            if (literals.isEmpty()) {
+                return fixed;
+            }
+
+            if (!input.hasNext()) {
+                return complete ? all : fixed;
+            }
+
+            String token = input.peek();
+
+            // Switches may consume any amount of input so we can't know which word a literal will see
+            if (token.startsWith("-") || (complete && input.remaining() == 1)) {
+                return all;
+            }
+
+            List<Edge> matched = literalIndex.get(token.toLowerCase(Locale.ROOT));
+            List<Edge> result = new ArrayList<>(fixed);
+
+            if (matched != null) {
+                result.addAll(matched);
+            }
+
+            if (!complete) {
+                for (Edge edge : literals) {
+                    if (matched == null || !matched.contains(edge)) {
+                        result.add(edge);
+                        break;
+                    }
+                }
+            }
+
+            return result;
+        }
+    }
+
+    public static class Edge {
+        @Getter
+        final ArgNode argNode;
+        final Node target;
+
+        Edge(ArgNode argNode, Node target) {
+            this.argNode = argNode;
+            this.target = target;
+        }
+
+        int getOrdinal() {
+            return target.ordinal;
+        }
+    }
+
+    /**
+     * End of a chain. For method chains this holds the method to call.
+     */
+    public static class Leaf {
+        @Getter
+        final MethodDescriptor method;
+        final int ordinal;
+
+        Leaf(MethodDescriptor method, int ordinal) {
+            this.method = method;
+            this.ordinal = ordinal;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2020-2022 Brendan Grieve (bundabrg) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package au.com.grieve.bcf;
+
+import au.com.grieve.bcf.annotations.Arg;
+import au.com.grieve.bcf.annotations.Default;
+import au.com.grieve.bcf.annotations.Error;
+import au.com.grieve.bcf.annotations.Permission;
+import au.com.grieve.bcf.utils.ReflectUtils;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * A method of a command along with its parsed @Arg, priority and permissions
+ */
+@Getter
+public class MethodDescriptor {
+    // Priority when choosing between equal chains
+    public static final int PRIORITY_DEFAULT = 0;
+    public static final int PRIORITY_ERROR = 1;
+    public static final int PRIORITY_NORMAL = 2;
+
+    // Stable order for methods as reflection makes no promises
+    static final Comparator<Method> ORDER = Comparator
+            .comparing(Method::getName)
+            .thenComparing(Method::getParameterCount)
+            .thenComparing(m -> Arrays.stream(m.getParameterTypes())
+                    .map(Class::getName)
+                    .collect(Collectors.joining(",")));
+
+    private final Method method;
+    private final List<List<ArgNode>> args;
+    private final List<String> permissions;
+    private final boolean defaultMethod;
+    private final boolean errorMethod;
+    private final int priority;
+
+    // Invokes the method as (Object instance, Object[] parameters)
+    private final MethodHandle invoker;
+
+    // Binders by number of leading arguments
+    @Getter(AccessLevel.NONE)
+    private final Map<Integer, MethodHandle> binders = new ConcurrentHashMap<>();
+
+    public MethodDescriptor(Method method) {
+        this.method = method;
+        this.invoker = ReflectUtils.getInvoker(method);
+        this.args = Collections.unmodifiableList(Arrays.stream(method.getAnnotationsByType(Arg.class))
+                .map(ArgNode::parse)
+                .collect(Collectors.toList()));
+        this.permissions = Collections.unmodifiableList(Arrays.stream(method.getAnnotationsByType(Permission.class))
+                .map(Permission::value)
+                .collect(Collectors.toList()));
+        this.defaultMethod = method.isAnnotationPresent(Default.class);
+        this.errorMethod = method.isAnnotationPresent(Error.class);
+
+        if (defaultMethod) {
+            priority = PRIORITY_DEFAULT;
+        } else if (errorMethod) {
+            priority = PRIORITY_ERROR;
+        } else {
+            priority = PRIORITY_NORMAL;
+        }
+    }
+
+    /**
+     * Return a handle invoking the method as (Object instance, Parser[] parsers, Object[] leading), or null if the
+     * counts don't add up to the parameters of the method
+     */
+    public MethodHandle getBinder(int leading, int parsers) {
+        if (leading + parsers != method.getParameterCount()) {
+            return null;
+        }
+
+        MethodHandle binder = binders.get(leading);
+        if (binder == null) {
+            binder = binders.computeIfAbsent(leading, k -> ReflectUtils.getBinder(method, k));
+        }
+        return binder;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getName() + "(method=" + method + ", args=" + args + ", permissions=" + permissions + ")";
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2020-2022 Brendan Grieve (bundabrg) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package au.com.grieve.bcf;
+
+/**
+ * Decides whether a command or method can be reached before any of its input is parsed
+ * <p>
+ * A denied command is skipped along with its methods and sub-commands, and a branch of method @Arg is skipped when
+ * every method it leads to is denied, so a denial costs one check instead of a parse. Platforms use this for
+ * permissions.
+ * <p>
+ * Completions are shared between contexts the filter treats the same, so its decisions should depend only on the
+ * sender.
+ */
+public interface NodeFilter {
+    NodeFilter ALLOW = new NodeFilter() {
+    };
+
+    default boolean testCommand(BaseCommand command, CommandContext context) {
+        return true;
+    }
+
+    default boolean testMethod(BaseCommand command, MethodDescriptor method, CommandContext context) {
+        return true;
+    }
+}
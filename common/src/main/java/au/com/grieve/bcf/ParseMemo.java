@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2020-2022 Brendan Grieve (bundabrg) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package au.com.grieve.bcf;
+
+import au.com.grieve.bcf.exceptions.ParserException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Outcome of every parse during a single dispatch
+ * <p>
+ * Different chains often start with the same parsers over the same words, such as several @Arg of a method that
+ * share a prefix. Each distinct parse of a node at a position is done once and its parser, where it stopped and any
+ * error are reused by every other chain reaching the same point.
+ * <p>
+ * A memo belongs to one dispatch over one line, so it is not thread safe.
+ */
+public final class ParseMemo {
+    private final Map<Key, Entry> entries = new HashMap<>();
+
+    public Entry get(ArgNode node, int position, boolean defaults) {
+        return entries.get(new Key(node, position, defaults));
+    }
+
+    public void put(ArgNode node, int position, boolean defaults, Entry entry) {
+        entries.put(new Key(node, position, defaults), entry);
+    }
+
+    public static final class Entry {
+        final Parser parser;
+        final int end;
+        final ParserException error;
+
+        public Entry(Parser parser, int end, ParserException error) {
+            this.parser = parser;
+            this.end = end;
+            this.error = error;
+        }
+    }
+
+    private static final class Key {
+        final ArgNode node;
+        final int position;
+        final boolean defaults;
+
+        Key(ArgNode node, int position, boolean defaults) {
+            this.node = node;
+            this.position = position;
+            this.defaults = defaults;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            Key other = (Key) obj;
+            return position == other.position && defaults == other.defaults && node.equals(other.node);
+        }
+
+        @Override
+        public int hashCode() {
+            return (node.hashCode() * 31 + position) * 2 + (defaults ? 1 : 0);
+        }
+    }
+}
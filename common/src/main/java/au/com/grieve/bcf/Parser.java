@@ -28,6 +28,7 @@ import au.com.grieve.bcf.exceptions.ParserRequiredArgumentException;
 import lombok.Getter;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -37,12 +38,23 @@ public abstract class Parser {
     // Data
     protected final CommandManager<?, ?> manager;
     protected final CommandContext context;
+
+    /**
+     * Defaults set by a constructor, returned by {@link #getDefaultParameters()} unless it is overridden
+     *
+     * @deprecated Override {@link #getDefaultParameters()} to return a constant instead. This map is only read once
+     * per node, when its definition is created.
+     */
+    @Deprecated
     protected final Map<String, String> defaultParameters = new HashMap<>();
 
     protected boolean parsed = false;
 
     protected ArgNode argNode;
 
+    // Shared configuration of the node, when created through one
+    ParserDefinition definition;
+
     // Cache
     protected Object result;
 
@@ -62,13 +74,83 @@ public abstract class Parser {
         return result;
     }
 
+    /**
+     * Make sure the result can be produced, throwing if not
+     * <p>
+     * Parsers with primitive results override this so checking a chain does not box the value.
+     */
+    public void validate() throws ParserInvalidResultException {
+        getResult();
+    }
+
+    /**
+     * Return the result for an int parameter. Parsers producing numbers override this and the other primitive
+     * accessors so the value can be passed to a method without boxing.
+     */
+    public int getIntResult() throws ParserInvalidResultException {
+        return (Integer) getResult();
+    }
+
+    public long getLongResult() throws ParserInvalidResultException {
+        return (Long) getResult();
+    }
+
+    public double getDoubleResult() throws ParserInvalidResultException {
+        return (Double) getResult();
+    }
+
+    /**
+     * Return true if completions and results depend only on the input and parameters, and never on the sender or
+     * anything else that can change. Completions passing only through such parsers are shared between senders.
+     */
+    public boolean isSenderIndependent() {
+        return false;
+    }
+
+    /**
+     * Return true if the outcome of a parse depends only on the words read, the parameters and the sender, and not on
+     * the rest of the context. One parse is then reused by every chain reaching the same words during a dispatch.
+     */
+    public boolean isReusable() {
+        return false;
+    }
+
+    /**
+     * Return true if the completions of a word include every completion of a longer word starting with it, unless there
+     * are at least {@link CompletionCache#LIMIT} of them. Completions offered only by such parsers are narrowed as the
+     * word grows instead of being completed again.
+     */
+    public boolean isCompletionExhaustive() {
+        return false;
+    }
+
     @SuppressWarnings("unused")
     public String getParameter(String key) {
         return getParameter(key, null);
     }
 
     public String getParameter(String key, String def) {
-        return argNode.getParameters().getOrDefault(key, defaultParameters.getOrDefault(key, def));
+        if (definition != null) {
+            return definition.getParameter(key, def);
+        }
+
+        return argNode.getParameters().getOrDefault(key, getDefaultParameters().getOrDefault(key, def));
+    }
+
+    /**
+     * Return the defaults of any parameters not given on the node. This is only asked for once for each node, when
+     * its definition is created, so it should return a constant rather than build a map for every parser.
+     */
+    @SuppressWarnings("deprecation")
+    public Map<String, String> getDefaultParameters() {
+        return defaultParameters.isEmpty() ? Collections.emptyMap() : defaultParameters;
+    }
+
+    /**
+     * Return true if the result of this parser is not passed to the method
+     */
+    public boolean isSuppressed() {
+        return definition != null ? definition.isSuppressed() : getParameter("suppress", "false").equals("true");
     }
 
     // default methods
@@ -83,7 +165,7 @@ public abstract class Parser {
     /**
      * Take input and return the unused data
      */
-    public void parse(List<String> input, boolean defaults) throws ParserRequiredArgumentException {
+    public void parse(ArgumentReader input, boolean defaults) throws ParserRequiredArgumentException {
         parsed = true;
     }
 
@@ -91,7 +173,7 @@ public abstract class Parser {
     public String toString() {
         return getClass().getName() + "(argNode=" + argNode + ", " +
                 "context=" + context + ", " +
-                "defaultParameters=" + defaultParameters + ", " +
+                "definition=" + definition + ", " +
                 "parsed=" + parsed + ")";
     }
 
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2020-2022 Brendan Grieve (bundabrg) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package au.com.grieve.bcf;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Everything about a parser that does not change between dispatches through its node
+ * <p>
+ * A definition is created once for each node and shared by every dispatch on every thread. It finds the factory for
+ * the node and merges the default parameters of the parser with those of the node, so each {@link Parser} only
+ * holds the state of a single parse.
+ */
+@Getter
+public final class ParserDefinition {
+    private static final Pattern SWITCH_SEPARATOR = Pattern.compile("\\|");
+
+    private final CommandManager<?, ?> manager;
+    private final ArgNode argNode;
+    private final ParserFactory factory;
+
+    // Node parameters over the parsers defaults
+    private final Map<String, String> parameters;
+
+    private final boolean suppressed;
+
+    // Names of a switch without its leading "-", or empty if this is not a switch
+    private final List<String> switchNames;
+
+    // Completion for each of the switch names
+    private final List<Candidate> switchCandidates;
+
+    ParserDefinition(CommandManager<?, ?> manager, ArgNode argNode, ParserFactory factory) {
+        this.manager = manager;
+        this.argNode = argNode;
+        this.factory = factory;
+
+        // Defaults belong to the parser class so ask one, once for the node
+        Parser prototype = factory.create(manager, argNode, new CommandContext());
+
+        Map<String, String> parameters = new HashMap<>(prototype.getDefaultParameters());
+        parameters.putAll(argNode.getParameters());
+        this.parameters = parameters.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(parameters);
+
+        this.suppressed = getParameter("suppress", "false").equals("true");
+
+        String switchParameter = getParameter("switch", null);
+        if (switchParameter == null) {
+            this.switchNames = Collections.emptyList();
+            this.switchCandidates = Collections.emptyList();
+        } else {
+            List<String> names = new ArrayList<>();
+            List<Candidate> candidates = new ArrayList<>();
+            for (String name : SWITCH_SEPARATOR.split(switchParameter)) {
+                names.add(name);
+                candidates.add(new Candidate("-" + name, "-" + name, getParameter("description", null), null));
+            }
+            this.switchNames = Collections.unmodifiableList(names);
+            this.switchCandidates = Collections.unmodifiableList(candidates);
+        }
+    }
+
+    public String getParameter(String key, String def) {
+        return parameters.getOrDefault(key, def);
+    }
+
+    /**
+     * Return a new parser for a single parse
+     */
+    public Parser newParser(CommandContext context) {
+        Parser parser = factory.create(manager, argNode, context);
+        parser.definition = this;
+        return parser;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getName() + "(argNode=" + argNode + ", parameters=" + parameters + ")";
+    }
+}
@@ -24,8 +24,10 @@
 package au.com.grieve.bcf;
 
 
+import au.com.grieve.bcf.utils.ReflectUtils;
 import lombok.Getter;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.List;
@@ -36,9 +38,15 @@ public class ParserMethod {
     @Getter
     private final Method method;
 
+    // Invokes the method as (Object instance, Object[] parameters)
+    private final MethodHandle invoker;
+    private final Class<?>[] parameterTypes;
+
     public ParserMethod(BaseCommand command, Method method) {
         this.command = command;
         this.method = method;
+        this.invoker = ReflectUtils.getInvoker(method);
+        this.parameterTypes = method.getParameterTypes();
     }
 
     @SuppressWarnings("UnusedReturnValue")
@@ -48,6 +56,21 @@ public class ParserMethod {
 
     @SuppressWarnings("UnusedReturnValue")
     public Object invoke(Object... args) throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
-        return method.invoke(command, args);
+        if (args.length != parameterTypes.length) {
+            throw new IllegalArgumentException("wrong number of arguments");
+        }
+
+        // Checked first so that anything thrown by the method itself is never mistaken for a bad argument
+        for (int i = 0; i < args.length; i++) {
+            if (!ReflectUtils.isAssignable(parameterTypes[i], args[i])) {
+                throw new IllegalArgumentException("argument type mismatch");
+            }
+        }
+
+        try {
+            return invoker.invokeExact((Object) command, args);
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
     }
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2020-2022 Brendan Grieve (bundabrg) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package au.com.grieve.bcf;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiPredicate;
+import java.util.function.Supplier;
+
+/**
+ * Remembers which permissions each sender has been found to have
+ * <p>
+ * A completion can test the same permission on many nodes, and with a permissions plugin each test can be expensive.
+ * Each permission is tested once per sender and the decisions are kept for {@link #getTimeout()} milliseconds, or
+ * until {@link #invalidate(Object)} is called when a platform sees a sender's permissions may have changed. Anything
+ * worked out from the decisions, such as a filter fingerprint, can be kept alongside them with
+ * {@link #remember(Object, Object, Supplier)}.
+ */
+public class PermissionCache {
+    // Drop expired senders once this many are held
+    private static final int PURGE_SIZE = 1000;
+
+    private final Map<Object, Decisions> decisions = new ConcurrentHashMap<>();
+
+    // Milliseconds before decisions expire
+    @Getter
+    @Setter
+    private long timeout = 1000;
+
+    /**
+     * Return true if sender has permission, asking check only if it isn't known
+     */
+    public <S> boolean test(S sender, String permission, BiPredicate<S, String> check) {
+        Decisions current = getDecisions(sender);
+
+        Boolean result = current.results.get(permission);
+        if (result == null) {
+            result = check.test(sender, permission);
+            current.results.put(permission, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Return true if sender has any of permissions, or unknown if there are none
+     */
+    public <S> boolean testAny(S sender, List<String> permissions, boolean unknown, BiPredicate<S, String> check) {
+        if (permissions.isEmpty()) {
+            return unknown;
+        }
+
+        for (String permission : permissions) {
+            if (test(sender, permission, check)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Return something worked out from the permissions of sender, computing it only if it isn't known. It is forgotten
+     * along with the decisions of sender.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T remember(Object sender, Object key, Supplier<T> compute) {
+        return (T) getDecisions(sender).derived.computeIfAbsent(key, k -> compute.get());
+    }
+
+    /**
+     * Forget the decisions for a sender, such as when their permissions change
+     */
+    public void invalidate(Object sender) {
+        decisions.remove(sender);
+    }
+
+    public void invalidateAll() {
+        decisions.clear();
+    }
+
+    private Decisions getDecisions(Object sender) {
+        long now = System.currentTimeMillis();
+
+        Decisions current = decisions.get(sender);
+        if (current == null || current.created <= now - timeout) {
+            if (decisions.size() >= PURGE_SIZE) {
+                decisions.values().removeIf(d -> d.created <= now - timeout);
+            }
+
+            current = new Decisions(now);
+            decisions.put(sender, current);
+        }
+
+        return current;
+    }
+
+    private static class Decisions {
+        final long created;
+        final Map<String, Boolean> results = new ConcurrentHashMap<>();
+        final Map<Object, Object> derived = new ConcurrentHashMap<>();
+
+        Decisions(long created) {
+            this.created = created;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2020-2022 Brendan Grieve (bundabrg) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package au.com.grieve.bcf;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Completions shared between every sender
+ * <p>
+ * Many players often complete the same line at once, such as when an event starts. Completions are kept by command
+ * root, line and {@link CommandRoot#getFilterFingerprint(CommandContext) filter fingerprint}, so senders allowed the
+ * same commands share them. Fingerprints are kept in the {@link PermissionCache} of each sender. Only completions
+ * that passed through nothing but {@link Parser#isSenderIndependent() sender independent} parsers are kept.
+ * <p>
+ * A line being completed is only completed once: anyone else asking for it meanwhile waits for that result, apart
+ * from the {@link CommandManager#isMainThread() main thread} which completes it again rather than wait. Lines are
+ * dropped {@link #getTimeout()} milliseconds after they were completed. The least recently used lines are dropped once
+ * more than {@link #getCapacity()} are kept, and every line is dropped whenever commands or parsers are registered or
+ * {@link #invalidateAll()} is called.
+ */
+public class SharedCompletionCache {
+    // Most lines kept
+    @Getter
+    @Setter
+    private int capacity = 1000;
+
+    // Milliseconds a completed line is kept
+    @Getter
+    @Setter
+    private long timeout = 5000;
+
+    private final Map<Key, CompletableFuture<Result>> entries = new LinkedHashMap<Key, CompletableFuture<Result>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, CompletableFuture<Result>> eldest) {
+            return size() > capacity;
+        }
+    };
+
+    /**
+     * Complete input for a sender, sharing the result with anyone else completing the same
+     */
+    public List<Candidate> complete(Object sender, CommandRoot root, String input, List<String> tokens, CommandContext context) {
+        CompletionSink sink = root.newCompletionSink();
+        complete(sender, root, input, tokens, context, sink);
+        return sink.getCandidates();
+    }
+
+    /**
+     * Complete input for a sender into sink, sharing the result with anyone else completing the same
+     * <p>
+     * The sink is marked as it would have been by the completion that was shared.
+     */
+    public void complete(Object sender, CommandRoot root, String input, List<String> tokens, CommandContext context, CompletionSink sink) {
+        Key key = new Key(root, input, root.getFilterFingerprint(sender, context));
+
+        CompletableFuture<Result> future;
+        boolean owner = false;
+
+        synchronized (entries) {
+            future = entries.get(key);
+            if (future != null && isExpired(future)) {
+                entries.remove(key);
+                future = null;
+            }
+
+            if (future == null) {
+                future = new CompletableFuture<>();
+                entries.put(key, future);
+                owner = true;
+            }
+        }
+
+        if (owner) {
+            completeShared(key, future, root, tokens, context, sink);
+            return;
+        }
+
+        // Waiting would stall the server, so complete it again unless it is already done
+        if (!future.isDone() && root.getManager().isMainThread()) {
+            root.complete(tokens, context, sink);
+            return;
+        }
+
+        Result result;
+        try {
+            Deadline deadline = context.getDeadline();
+            result = deadline == Deadline.NONE
+                    ? future.get()
+                    : future.get(deadline.remaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sink.markNotExhaustive();
+            return;
+        } catch (TimeoutException e) {
+            // Out of time while waiting, so nothing was found
+            sink.markNotExhaustive();
+            return;
+        } catch (ExecutionException e) {
+            result = null;
+        }
+
+        // Whoever completed it used something that depends on them, or failed
+        if (result == null || !result.shared) {
+            root.complete(tokens, context, sink);
+            return;
+        }
+
+        sink.addAll(result.candidates);
+        if (!result.exhaustive) {
+            sink.markNotExhaustive();
+        }
+    }
+
+    private void completeShared(Key key, CompletableFuture<Result> future, CommandRoot root, List<String> tokens, CommandContext context, CompletionSink sink) {
+        List<Candidate> candidates;
+        boolean shared;
+
+        try {
+            candidates = root.complete(tokens, context, sink);
+
+            // A completion cut short by its deadline is missing candidates
+            shared = !sink.isSenderDependent() && !context.getDeadline().isExpired();
+        } catch (RuntimeException | Error e) {
+            remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+
+        if (!shared) {
+            remove(key, future);
+        }
+
+        future.complete(new Result(candidates, shared, sink.isExhaustive()));
+    }
+
+    /**
+     * True if a line was completed longer than the timeout ago
+     */
+    private boolean isExpired(CompletableFuture<Result> future) {
+        Result result = future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
+        return result != null && System.currentTimeMillis() - result.created > timeout;
+    }
+
+    private void remove(Key key, CompletableFuture<Result> future) {
+        synchronized (entries) {
+            entries.remove(key, future);
+        }
+    }
+
+    /**
+     * Forget every line of a command root
+     */
+    public void invalidate(CommandRoot root) {
+        synchronized (entries) {
+            entries.keySet().removeIf(key -> key.root == root);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private static class Key {
+        final CommandRoot root;
+        final String input;
+        final BitSet fingerprint;
+        final int hash;
+
+        Key(CommandRoot root, String input, BitSet fingerprint) {
+            this.root = root;
+            this.input = input;
+            this.fingerprint = fingerprint;
+            this.hash = (System.identityHashCode(root) * 31 + input.hashCode()) * 31 + fingerprint.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            Key other = (Key) obj;
+            return root == other.root && input.equals(other.input) && fingerprint.equals(other.fingerprint);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static class Result {
+        final List<Candidate> candidates;
+        final boolean shared;
+        final boolean exhaustive;
+        final long created = System.currentTimeMillis();
+
+        Result(List<Candidate> candidates, boolean shared, boolean exhaustive) {
+            this.candidates = Collections.unmodifiableList(new ArrayList<>(candidates));
+            this.shared = shared;
+            this.exhaustive = exhaustive;
+        }
+    }
+}
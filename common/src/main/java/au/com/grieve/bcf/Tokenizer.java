@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2020-2022 Brendan Grieve (bundabrg) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package au.com.grieve.bcf;
+
+import lombok.Getter;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Splits a command line into words
+ * <p>
+ * Words are separated by spaces. A word starting with " or ' is quoted up to the matching quote and may include
+ * spaces, and inside it a backslash escapes that quote or another backslash. Anywhere else quotes and backslashes are
+ * kept as they are, as is a quote that is never closed. Only the offsets of each word are recorded, the text of a word
+ * is only created when it is read.
+ */
+public class Tokenizer {
+
+    /**
+     * Split a line into words
+     *
+     * @param complete If true and the line ends with a space then an empty word is added at the end, which is what
+     *                 completion expects when starting a new word.
+     */
+    public static Tokens tokenize(CharSequence line, boolean complete) {
+        int length = line.length();
+        int[] offsets = new int[16];
+        int count = 0;
+        int i = 0;
+
+        while (true) {
+            while (i < length && line.charAt(i) == ' ') {
+                i++;
+            }
+
+            if (i >= length) {
+                break;
+            }
+
+            int start = i;
+
+            // A quoted word carries on past spaces up to its closing quote
+            int close = findClose(line, start, length);
+            if (close >= 0) {
+                i = close + 1;
+            }
+
+            while (i < length && line.charAt(i) != ' ') {
+                i++;
+            }
+
+            if (count * 2 == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[count * 2] = start;
+            offsets[count * 2 + 1] = Math.min(i, length);
+            count++;
+        }
+
+        boolean trailingEmpty = complete && (count == 0 || offsets[count * 2 - 1] < length);
+        return new Tokens(line, offsets, count, trailingEmpty);
+    }
+
+    /**
+     * Return the offset of the quote closing a word starting at start, or -1 if it is not quoted or never closed
+     */
+    private static int findClose(CharSequence line, int start, int end) {
+        char quote = line.charAt(start);
+        if (quote != '"' && quote != '\'') {
+            return -1;
+        }
+
+        for (int i = start + 1; i < end; i++) {
+            char c = line.charAt(i);
+
+            if (c == quote) {
+                return i;
+            }
+            if (c == '\\' && i + 1 < end && (line.charAt(i + 1) == quote || line.charAt(i + 1) == '\\')) {
+                i++;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The words of a line
+     * <p>
+     * Reading a word creates its text once and keeps it.
+     */
+    public static class Tokens extends AbstractList<String> implements RandomAccess {
+        @Getter
+        private final CharSequence line;
+        private final int[] offsets;
+        private final int count;
+        private final String[] values;
+
+        // True if the last word is the empty word added for completion
+        @Getter
+        private final boolean trailingEmpty;
+
+        private Tokens(CharSequence line, int[] offsets, int count, boolean trailingEmpty) {
+            this.line = line;
+            this.offsets = offsets;
+            this.count = count;
+            this.trailingEmpty = trailingEmpty;
+            this.values = new String[size()];
+        }
+
+        /**
+         * Offset in the line of the first character of a word, including any quote
+         */
+        public int getStart(int index) {
+            return index < count ? offsets[index * 2] : line.length();
+        }
+
+        /**
+         * Offset in the line after the last character of a word, including any quote
+         */
+        public int getEnd(int index) {
+            return index < count ? offsets[index * 2 + 1] : line.length();
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= values.length) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + values.length);
+            }
+
+            String value = values[index];
+            if (value == null) {
+                value = unquote(getStart(index), getEnd(index));
+                values[index] = value;
+            }
+            return value;
+        }
+
+        @Override
+        public int size() {
+            return trailingEmpty ? count + 1 : count;
+        }
+
+        /**
+         * Return the text of a slice of the line with its quotes and escapes removed
+         */
+        private String unquote(int start, int end) {
+            int close = start < end ? findClose(line, start, end) : -1;
+            if (close < 0) {
+                return line.subSequence(start, end).toString();
+            }
+
+            char quote = line.charAt(start);
+            StringBuilder result = new StringBuilder(end - start);
+
+            for (int i = start + 1; i < close; i++) {
+                char c = line.charAt(i);
+
+                if (c == '\\' && i + 1 < close && (line.charAt(i + 1) == quote || line.charAt(i + 1) == '\\')) {
+                    c = line.charAt(++i);
+                }
+                result.append(c);
+            }
+
+            return result.append(line, close + 1, end).toString();
+        }
+    }
+}
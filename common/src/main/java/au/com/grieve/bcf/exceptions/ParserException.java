@@ -26,6 +26,12 @@ package au.com.grieve.bcf.exceptions;
 import au.com.grieve.bcf.Parser;
 import lombok.Getter;
 
+/**
+ * Signals that a parser rejected its input
+ * <p>
+ * These are thrown for nearly every branch that doesn't match during dispatch and completion so they carry no stack
+ * trace.
+ */
 public class ParserException extends Exception {
 
     @Getter
@@ -40,7 +46,7 @@ public class ParserException extends Exception {
     }
 
     public ParserException(Parser parser, String message, Throwable err) {
-        super(message, err);
+        super(message, err, false, false);
         this.parser = parser;
     }
 }
@@ -25,11 +25,15 @@ package au.com.grieve.bcf.exceptions;
 
 import lombok.Getter;
 
+/**
+ * Signals an unknown switch during dispatch and completion. Like {@link ParserException} it carries no stack trace.
+ */
 public class SwitchNotFoundException extends Exception {
     @Getter
     final String switchName;
 
     public SwitchNotFoundException(String switchName) {
+        super(null, null, false, false);
         this.switchName = switchName;
     }
 
@@ -31,11 +31,23 @@ import au.com.grieve.bcf.exceptions.ParserInvalidResultException;
 import java.util.List;
 
 public class DoubleParser extends SingleParser {
+    private boolean hasValue;
+    private double value;
 
     public DoubleParser(CommandManager<?, ?> manager, ArgNode argNode, CommandContext context) {
         super(manager, argNode, context);
     }
 
+    @Override
+    public boolean isSenderIndependent() {
+        return true;
+    }
+
+    @Override
+    public boolean isReusable() {
+        return true;
+    }
+
     @Override
     protected List<String> complete() {
         List<String> ret = super.complete();
@@ -44,12 +56,34 @@ public class DoubleParser extends SingleParser {
     }
 
 
+    @Override
+    public double getDoubleResult() throws ParserInvalidResultException {
+        return parseValue();
+    }
+
+    @Override
+    public void validate() throws ParserInvalidResultException {
+        parseValue();
+    }
+
     @Override
     protected Object result() throws ParserInvalidResultException {
-        try {
-            return Double.valueOf(getInput());
-        } catch (NumberFormatException e) {
-            throw new ParserInvalidResultException(this, "Not a valid double");
+        return parseValue();
+    }
+
+    private double parseValue() throws ParserInvalidResultException {
+        if (!hasValue) {
+            checkInput();
+
+            try {
+                value = Double.parseDouble(getInput());
+            } catch (NumberFormatException e) {
+                throw new ParserInvalidResultException(this, "Not a valid double");
+            }
+
+            hasValue = true;
         }
+
+        return value;
     }
 }
@@ -31,11 +31,23 @@ import au.com.grieve.bcf.exceptions.ParserInvalidResultException;
 import java.util.List;
 
 public class FloatParser extends SingleParser {
+    private boolean hasValue;
+    private float value;
 
     public FloatParser(CommandManager<?, ?> manager, ArgNode argNode, CommandContext context) {
         super(manager, argNode, context);
     }
 
+    @Override
+    public boolean isSenderIndependent() {
+        return true;
+    }
+
+    @Override
+    public boolean isReusable() {
+        return true;
+    }
+
     @Override
     protected List<String> complete() {
         List<String> ret = super.complete();
@@ -43,12 +55,34 @@ public class FloatParser extends SingleParser {
         return ret;
     }
 
+    @Override
+    public double getDoubleResult() throws ParserInvalidResultException {
+        return parseValue();
+    }
+
+    @Override
+    public void validate() throws ParserInvalidResultException {
+        parseValue();
+    }
+
     @Override
     protected Object result() throws ParserInvalidResultException {
-        try {
-            return Float.valueOf(getInput());
-        } catch (NumberFormatException e) {
-            throw new ParserInvalidResultException(this, "Not a valid float");
+        return parseValue();
+    }
+
+    private float parseValue() throws ParserInvalidResultException {
+        if (!hasValue) {
+            checkInput();
+
+            try {
+                value = Float.parseFloat(getInput());
+            } catch (NumberFormatException e) {
+                throw new ParserInvalidResultException(this, "Not a valid float");
+            }
+
+            hasValue = true;
         }
+
+        return value;
     }
 }
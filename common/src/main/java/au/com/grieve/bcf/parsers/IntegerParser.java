@@ -27,40 +27,47 @@ import au.com.grieve.bcf.ArgNode;
 import au.com.grieve.bcf.CommandContext;
 import au.com.grieve.bcf.CommandManager;
 import au.com.grieve.bcf.exceptions.ParserInvalidResultException;
+import au.com.grieve.bcf.utils.IntegerRange;
 
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 public class IntegerParser extends SingleParser {
+    private boolean hasValue;
+    private int value;
 
     public IntegerParser(CommandManager<?, ?> manager, ArgNode argNode, CommandContext context) {
         super(manager, argNode, context);
     }
 
+    @Override
+    public boolean isSenderIndependent() {
+        return true;
+    }
+
+    @Override
+    public boolean isReusable() {
+        return true;
+    }
+
+    @Override
+    public boolean isCompletionExhaustive() {
+        return true;
+    }
+
+    protected IntegerRange getRange() {
+        return IntegerRange.of(this, "integer", Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
     @Override
     protected List<String> complete() {
+        IntegerRange range = getRange();
+        if (range.hasMax()) {
+            return range.complete(getInput(), 20);
+        }
+
+        // An invalid max offers no completions
         if (getParameter("max") != null) {
-            int min;
-            int max;
-
-            try {
-                max = Integer.parseInt(getParameter("max"));
-            } catch (NumberFormatException e) {
-                return super.complete();
-            }
-
-            try {
-                min = Integer.parseInt(getParameter("min", "0"));
-            } catch (NumberFormatException e) {
-                min = 0;
-            }
-
-            return IntStream.rangeClosed(min, max)
-                    .mapToObj(String::valueOf)
-                    .filter(s -> s.startsWith(getInput()))
-                    .limit(20)
-                    .collect(Collectors.toList());
+            return super.complete();
         }
 
         List<String> ret = super.complete();
@@ -69,28 +76,33 @@ public class IntegerParser extends SingleParser {
     }
 
     @Override
-    protected Object result() throws ParserInvalidResultException {
-        int result;
+    public int getIntResult() throws ParserInvalidResultException {
+        if (!hasValue) {
+            checkInput();
+            value = (int) getRange().parse(this, getInput(), 0, getInput().length());
+            hasValue = true;
+        }
 
-        try {
-            result = Integer.parseInt(getInput());
+        return value;
+    }
 
-            if (getParameter("min") != null) {
-                if (result < Integer.parseInt(getParameter("min"))) {
-                    throw new ParserInvalidResultException(this);
-                }
-            }
+    @Override
+    public long getLongResult() throws ParserInvalidResultException {
+        return getIntResult();
+    }
 
-            if (getParameter("max") != null) {
-                if (result > Integer.parseInt(getParameter("max"))) {
-                    throw new ParserInvalidResultException(this);
-                }
-            }
+    @Override
+    public double getDoubleResult() throws ParserInvalidResultException {
+        return getIntResult();
+    }
 
-        } catch (NumberFormatException e) {
-            throw new ParserInvalidResultException(this, "Not a valid integer");
-        }
+    @Override
+    public void validate() throws ParserInvalidResultException {
+        getIntResult();
+    }
 
-        return result;
+    @Override
+    protected Object result() throws ParserInvalidResultException {
+        return getIntResult();
     }
 }
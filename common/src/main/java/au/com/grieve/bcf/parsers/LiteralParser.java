@@ -24,13 +24,14 @@
 package au.com.grieve.bcf.parsers;
 
 import au.com.grieve.bcf.ArgNode;
-import au.com.grieve.bcf.BaseCommand;
 import au.com.grieve.bcf.CommandContext;
 import au.com.grieve.bcf.CommandManager;
 import au.com.grieve.bcf.exceptions.ParserInvalidResultException;
+import au.com.grieve.bcf.utils.AliasIndex;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Literal is provided as follows:
@@ -42,23 +43,43 @@ import java.util.List;
  * Will use the first matching alias as an alternative for partials
  */
 public class LiteralParser extends SingleParser {
+    private static final String WILDCARD = "*";
+    private static final Map<String, String> DEFAULTS = Collections.singletonMap("suppress", "true");
 
+    private final AliasIndex aliases;
 
-    public LiteralParser(CommandManager<BaseCommand, ?> manager, ArgNode argNode, CommandContext context) {
+    public LiteralParser(CommandManager<?, ?> manager, ArgNode argNode, CommandContext context) {
         super(manager, argNode, context);
-        defaultParameters.put("suppress", "true");
+        aliases = AliasIndex.of(argNode.getName());
+    }
+
+    @Override
+    public Map<String, String> getDefaultParameters() {
+        return DEFAULTS;
+    }
+
+    @Override
+    public boolean isSenderIndependent() {
+        return true;
+    }
+
+    @Override
+    public boolean isReusable() {
+        return true;
+    }
+
+    @Override
+    public boolean isCompletionExhaustive() {
+        return true;
     }
 
     @Override
     protected List<String> complete() {
-        List<String> result = new ArrayList<>();
-
-        for (String alias : argNode.getName().split("\\|")) {
-            if (alias.equals("*")) {
-                result.add(getInput());
-            } else if (alias.toLowerCase().startsWith(getInput().toLowerCase())) {
-                result.add(alias);
-            }
+        List<String> result = aliases.complete(getInput());
+
+        if (aliases.indexOf(WILDCARD) >= 0) {
+            result.remove(WILDCARD);
+            result.add(getInput());
         }
 
         return result;
@@ -66,14 +87,16 @@ public class LiteralParser extends SingleParser {
 
     @Override
     protected Object result() throws ParserInvalidResultException {
-        for (String alias : argNode.getName().split("\\|")) {
-            if (alias.equals("*")) {
-                return getInput();
-            }
-
-            if (alias.equalsIgnoreCase(getInput())) {
-                return alias;
-            }
+        int wildcard = aliases.indexOf(WILDCARD);
+        int match = aliases.indexOf(getInput());
+
+        // The first of a wildcard or matching alias wins
+        if (wildcard >= 0 && (match < 0 || wildcard < match)) {
+            return getInput();
+        }
+
+        if (match >= 0) {
+            return aliases.get(match);
         }
 
         throw new ParserInvalidResultException(this, "Invalid Command");
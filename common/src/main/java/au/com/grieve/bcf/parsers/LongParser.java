@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2020-2022 Brendan Grieve (bundabrg) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package au.com.grieve.bcf.parsers;
+
+import au.com.grieve.bcf.ArgNode;
+import au.com.grieve.bcf.CommandContext;
+import au.com.grieve.bcf.CommandManager;
+import au.com.grieve.bcf.exceptions.ParserInvalidResultException;
+import au.com.grieve.bcf.utils.IntegerRange;
+
+import java.util.List;
+
+public class LongParser extends SingleParser {
+    private boolean hasValue;
+    private long value;
+
+    public LongParser(CommandManager<?, ?> manager, ArgNode argNode, CommandContext context) {
+        super(manager, argNode, context);
+    }
+
+    @Override
+    public boolean isSenderIndependent() {
+        return true;
+    }
+
+    @Override
+    public boolean isReusable() {
+        return true;
+    }
+
+    @Override
+    public boolean isCompletionExhaustive() {
+        return true;
+    }
+
+    protected IntegerRange getRange() {
+        return IntegerRange.of(this, "long", Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    @Override
+    protected List<String> complete() {
+        IntegerRange range = getRange();
+        if (range.hasMax()) {
+            return range.complete(getInput(), 20);
+        }
+
+        // An invalid max offers no completions
+        if (getParameter("max") != null) {
+            return super.complete();
+        }
+
+        List<String> ret = super.complete();
+        ret.add("<long>");
+        return ret;
+    }
+
+    @Override
+    public long getLongResult() throws ParserInvalidResultException {
+        if (!hasValue) {
+            checkInput();
+            value = getRange().parse(this, getInput(), 0, getInput().length());
+            hasValue = true;
+        }
+
+        return value;
+    }
+
+    @Override
+    public double getDoubleResult() throws ParserInvalidResultException {
+        return getLongResult();
+    }
+
+    @Override
+    public void validate() throws ParserInvalidResultException {
+        getLongResult();
+    }
+
+    @Override
+    protected Object result() throws ParserInvalidResultException {
+        return getLongResult();
+    }
+}
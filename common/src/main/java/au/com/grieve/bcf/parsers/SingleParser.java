@@ -46,9 +46,9 @@ public abstract class SingleParser extends Parser {
     }
 
     @Override
-    public void parse(List<String> input, boolean defaults) throws ParserRequiredArgumentException {
+    public void parse(ArgumentReader input, boolean defaults) throws ParserRequiredArgumentException {
         parsed = true;
-        if (input == null || input.size() == 0) {
+        if (input == null || !input.hasNext()) {
             // Check if a default is provided or if its not required
             if (!defaults || (getParameter("default") == null && getParameter("required", "true").equals("true"))) {
                 throw new ParserRequiredArgumentException(this);
@@ -58,7 +58,7 @@ public abstract class SingleParser extends Parser {
             return;
         }
 
-        this.input = input.remove(0);
+        this.input = input.next();
     }
 
     @Override
@@ -78,11 +78,17 @@ public abstract class SingleParser extends Parser {
 
     @Override
     public Object getResult() throws ParserInvalidResultException {
+        checkInput();
+        return super.getResult();
+    }
+
+    /**
+     * Throw if there is no input to produce a result from
+     */
+    protected void checkInput() throws ParserInvalidResultException {
         if (input == null || input.isEmpty()) {
             throw new ParserInvalidResultException(this, "Invalid command");
         }
-
-        return super.getResult();
     }
 
 }
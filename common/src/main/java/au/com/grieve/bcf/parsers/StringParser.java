@@ -27,8 +27,8 @@ import au.com.grieve.bcf.ArgNode;
 import au.com.grieve.bcf.CommandContext;
 import au.com.grieve.bcf.CommandManager;
 import au.com.grieve.bcf.exceptions.ParserInvalidResultException;
+import au.com.grieve.bcf.utils.AliasIndex;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class StringParser extends SingleParser {
@@ -38,28 +38,36 @@ public class StringParser extends SingleParser {
     }
 
     @Override
-    protected List<String> complete() {
-        List<String> result = new ArrayList<>();
+    public boolean isSenderIndependent() {
+        return true;
+    }
 
-        for (String alias : getParameter("options", "").split("\\|")) {
-            if (alias.toLowerCase().startsWith(getInput().toLowerCase())) {
-                result.add(alias);
-            }
-        }
+    @Override
+    public boolean isReusable() {
+        return true;
+    }
 
-        return result;
+    @Override
+    public boolean isCompletionExhaustive() {
+        return true;
+    }
+
+    @Override
+    protected List<String> complete() {
+        return AliasIndex.of(getParameter("options", "")).complete(getInput());
     }
 
     @Override
     protected Object result() throws ParserInvalidResultException {
-        if (getParameter("options", "").isEmpty()) {
+        String options = getParameter("options", "");
+        if (options.isEmpty()) {
             return getInput();
         }
 
-        for (String alias : getParameter("options", "").split("\\|")) {
-            if (alias.equalsIgnoreCase(getInput())) {
-                return alias;
-            }
+        AliasIndex index = AliasIndex.of(options);
+        int match = index.indexOf(getInput());
+        if (match >= 0) {
+            return index.get(match);
         }
 
         throw new ParserInvalidResultException(this, "Invalid Option");
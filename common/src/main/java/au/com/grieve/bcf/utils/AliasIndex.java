@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2020-2022 Brendan Grieve (bundabrg) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package au.com.grieve.bcf.utils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A list of aliases separated by | indexed for case-insensitive lookup and prefix completion
+ * <p>
+ * Indexes are immutable and shared by everything using the same string.
+ */
+public class AliasIndex {
+    private static final Map<String, AliasIndex> cache = new ConcurrentHashMap<>();
+
+    // In declaration order
+    private final String[] aliases;
+
+    // Position of the first alias for each lowercase alias
+    private final Map<String, Integer> positions = new HashMap<>();
+
+    // Aliases sorted by their lowercase form
+    private final String[] sorted;
+    private final String[] sortedLower;
+
+    private AliasIndex(String value) {
+        aliases = value.split("\\|");
+
+        for (int i = 0; i < aliases.length; i++) {
+            positions.putIfAbsent(aliases[i].toLowerCase(Locale.ROOT), i);
+        }
+
+        sorted = aliases.clone();
+        Arrays.sort(sorted, Comparator.comparing(s -> s.toLowerCase(Locale.ROOT)));
+
+        sortedLower = new String[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            sortedLower[i] = sorted[i].toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Return the index for a string of aliases
+     */
+    public static AliasIndex of(String value) {
+        return cache.computeIfAbsent(value, AliasIndex::new);
+    }
+
+    public int size() {
+        return aliases.length;
+    }
+
+    public String get(int index) {
+        return aliases[index];
+    }
+
+    /**
+     * Return the position of the first alias matching input ignoring case, or -1
+     */
+    public int indexOf(String input) {
+        Integer position = positions.get(input.toLowerCase(Locale.ROOT));
+        return position != null ? position : -1;
+    }
+
+    /**
+     * Return the aliases starting with prefix ignoring case, in alphabetical order
+     */
+    public List<String> complete(String prefix) {
+        String lower = prefix.toLowerCase(Locale.ROOT);
+        List<String> result = new ArrayList<>();
+
+        for (int i = lowerBound(lower); i < sortedLower.length && sortedLower[i].startsWith(lower); i++) {
+            result.add(sorted[i]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Position of the first sorted alias not less than key
+     */
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = sortedLower.length;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedLower[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    @Override
+    public String toString() {
+        return String.join("|", aliases);
+    }
+}
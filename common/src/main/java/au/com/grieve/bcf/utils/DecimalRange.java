@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2020-2022 Brendan Grieve (bundabrg) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package au.com.grieve.bcf.utils;
+
+import au.com.grieve.bcf.Parser;
+import au.com.grieve.bcf.exceptions.ParserInvalidResultException;
+
+import java.math.BigDecimal;
+
+/**
+ * Bounds of a decimal parser read once from its min and max parameters
+ * <p>
+ * A min or max that is not a valid decimal makes all input invalid.
+ */
+public class DecimalRange {
+    private final BigDecimal min;
+    private final BigDecimal max;
+    private final String type;
+    private final boolean valid;
+
+    public DecimalRange(String type, String min, String max) {
+        this.type = type;
+        this.min = bound(min);
+        this.max = bound(max);
+        this.valid = (this.min != null) == (min != null) && (this.max != null) == (max != null);
+    }
+
+    /**
+     * Return the range of a parser, read the first time it is used on its node
+     */
+    public static DecimalRange of(Parser parser, String type) {
+        return parser.getArgNode().compile(parser.getClass(), node ->
+                new DecimalRange(type, parser.getParameter("min"), parser.getParameter("max")));
+    }
+
+    /**
+     * Return the value of a bound or null if it is missing or not a valid decimal
+     */
+    private static BigDecimal bound(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Throw if value is outside the range
+     */
+    public void check(Parser parser, BigDecimal value) throws ParserInvalidResultException {
+        if (!valid) {
+            throw new ParserInvalidResultException(parser, "Not a valid " + type);
+        }
+
+        if ((min != null && value.compareTo(min) < 0) || (max != null && value.compareTo(max) > 0)) {
+            throw new ParserInvalidResultException(parser);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2020-2022 Brendan Grieve (bundabrg) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package au.com.grieve.bcf.utils;
+
+import au.com.grieve.bcf.Parser;
+import au.com.grieve.bcf.exceptions.ParserInvalidResultException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounds of an integer parser read once from its min and max parameters
+ * <p>
+ * Input is read straight from its characters, and completions within the bounds are generated from the typed prefix
+ * instead of testing every value in the range. A min or max that is not a valid value of the type makes all input
+ * invalid, and an invalid max is not used for completion.
+ */
+public class IntegerRange {
+    private final String type;
+    private final long lowest;
+    private final long highest;
+
+    private final boolean hasMin;
+    private final boolean hasMax;
+    private final long min;
+    private final long max;
+    private final boolean valid;
+
+    /**
+     * @param type    name of the type used in errors
+     * @param lowest  lowest value of the type
+     * @param highest highest value of the type
+     */
+    public IntegerRange(String type, long lowest, long highest, String min, String max) {
+        this.type = type;
+        this.lowest = lowest;
+        this.highest = highest;
+
+        Long minBound = min != null ? bound(min) : null;
+        Long maxBound = max != null ? bound(max) : null;
+
+        this.hasMin = minBound != null;
+        this.min = hasMin ? minBound : lowest;
+        this.hasMax = maxBound != null;
+        this.max = hasMax ? maxBound : highest;
+        this.valid = hasMin == (min != null) && hasMax == (max != null);
+    }
+
+    /**
+     * Return the range of a parser, read the first time it is used on its node
+     */
+    public static IntegerRange of(Parser parser, String type, long lowest, long highest) {
+        return parser.getArgNode().compile(parser.getClass(), node ->
+                new IntegerRange(type, lowest, highest, parser.getParameter("min"), parser.getParameter("max")));
+    }
+
+    /**
+     * Return true if a valid max was given, which completion needs
+     */
+    public boolean hasMax() {
+        return hasMax;
+    }
+
+    /**
+     * Return the value of a bound or null if it is not a valid value of the type
+     */
+    private Long bound(String value) {
+        try {
+            long result = Long.parseLong(value);
+            return result < lowest || result > highest ? null : result;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parse the characters of input between start and end as a value within the range
+     */
+    public long parse(Parser parser, CharSequence input, int start, int end) throws ParserInvalidResultException {
+        int i = start;
+        boolean negative = false;
+
+        if (!valid) {
+            throw new ParserInvalidResultException(parser, "Not a valid " + type);
+        }
+
+        if (i < end && (input.charAt(i) == '-' || input.charAt(i) == '+')) {
+            negative = input.charAt(i) == '-';
+            i++;
+        }
+
+        if (i == end) {
+            throw new ParserInvalidResultException(parser, "Not a valid " + type);
+        }
+
+        // Accumulate negatively as the lowest value has no positive counterpart
+        long limit = negative ? lowest : -highest;
+        long limitDiv10 = limit / 10;
+        long result = 0;
+
+        for (; i < end; i++) {
+            int digit = Character.digit(input.charAt(i), 10);
+            if (digit < 0 || result < limitDiv10) {
+                throw new ParserInvalidResultException(parser, "Not a valid " + type);
+            }
+
+            result *= 10;
+            if (result < limit + digit) {
+                throw new ParserInvalidResultException(parser, "Not a valid " + type);
+            }
+            result -= digit;
+        }
+
+        long value = negative ? result : -result;
+
+        if (value < min || value > max) {
+            throw new ParserInvalidResultException(parser);
+        }
+
+        return value;
+    }
+
+    /**
+     * Return up to limit values within the range starting with prefix, in the order they are reached by typing
+     * <p>
+     * Without a min completion starts at 0.
+     */
+    public List<String> complete(CharSequence prefix, int limit) {
+        List<String> result = new ArrayList<>();
+
+        long low = hasMin ? min : 0;
+        long high = max;
+
+        if (prefix.length() == 0) {
+            for (long value = low; value <= high && result.size() < limit; value++) {
+                result.add(Long.toString(value));
+                if (value == Long.MAX_VALUE) {
+                    break;
+                }
+            }
+            return result;
+        }
+
+        // Work with magnitudes of values with the same sign as the prefix
+        boolean negative = prefix.charAt(0) == '-';
+        long lowMagnitude;
+        long highMagnitude;
+
+        if (negative) {
+            if (low >= 0) {
+                return result;
+            }
+            lowMagnitude = high >= 0 ? 1 : -high;
+            highMagnitude = low == Long.MIN_VALUE ? Long.MAX_VALUE : -low;
+        } else {
+            if (high < 0) {
+                return result;
+            }
+            lowMagnitude = Math.max(low, 0);
+            highMagnitude = high;
+        }
+
+        int start = negative ? 1 : 0;
+
+        if (start == prefix.length()) {
+            for (long magnitude = lowMagnitude; magnitude <= highMagnitude && result.size() < limit; magnitude++) {
+                result.add("-" + magnitude);
+                if (magnitude == Long.MAX_VALUE) {
+                    break;
+                }
+            }
+            return result;
+        }
+
+        // Nothing but 0 itself starts with 0
+        if (prefix.charAt(start) == '0' && prefix.length() - start > 1) {
+            return result;
+        }
+
+        long digits = 0;
+        for (int i = start; i < prefix.length(); i++) {
+            char c = prefix.charAt(i);
+            if (c < '0' || c > '9' || digits > (Long.MAX_VALUE - (c - '0')) / 10) {
+                return result;
+            }
+            digits = digits * 10 + (c - '0');
+        }
+
+        // Values starting with the digits are digits * 10^n to digits * 10^n + 10^n - 1 for each length n added
+        for (long scale = 1; result.size() < limit; scale *= 10) {
+            if (digits > highMagnitude / scale) {
+                break;
+            }
+
+            long first = digits * scale;
+            long last = scale - 1 > highMagnitude - first ? highMagnitude : first + scale - 1;
+
+            for (long magnitude = Math.max(first, lowMagnitude); magnitude <= last && result.size() < limit; magnitude++) {
+                result.add(negative ? "-" + magnitude : Long.toString(magnitude));
+                if (magnitude == Long.MAX_VALUE) {
+                    break;
+                }
+            }
+
+            if (digits == 0 || scale > Long.MAX_VALUE / 10) {
+                break;
+            }
+        }
+
+        return result;
+    }
+}
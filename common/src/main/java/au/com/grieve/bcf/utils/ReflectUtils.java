@@ -23,12 +23,35 @@
 
 package au.com.grieve.bcf.utils;
 
+import au.com.grieve.bcf.Parser;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class ReflectUtils {
+    // Primitive type of each wrapper
+    private static final Map<Class<?>, Class<?>> PRIMITIVES = new HashMap<>();
+
+    static {
+        PRIMITIVES.put(Boolean.class, boolean.class);
+        PRIMITIVES.put(Byte.class, byte.class);
+        PRIMITIVES.put(Short.class, short.class);
+        PRIMITIVES.put(Character.class, char.class);
+        PRIMITIVES.put(Integer.class, int.class);
+        PRIMITIVES.put(Long.class, long.class);
+        PRIMITIVES.put(Float.class, float.class);
+        PRIMITIVES.put(Double.class, double.class);
+    }
+
     /**
      * Get all super classes
      */
@@ -59,4 +82,128 @@ public class ReflectUtils {
             }
         }
     }
+
+    /**
+     * Return true if value can be passed as a parameter of type, unboxing and widening as reflection would
+     */
+    public static boolean isAssignable(Class<?> type, Object value) {
+        if (!type.isPrimitive()) {
+            return value == null || type.isInstance(value);
+        }
+
+        Class<?> primitive = value != null ? PRIMITIVES.get(value.getClass()) : null;
+        if (primitive == null) {
+            return false;
+        }
+        if (primitive == type) {
+            return true;
+        }
+
+        if (type == short.class) {
+            return primitive == byte.class;
+        }
+        if (type == int.class) {
+            return primitive == byte.class || primitive == short.class || primitive == char.class;
+        }
+        if (type == long.class) {
+            return primitive == byte.class || primitive == short.class || primitive == char.class || primitive == int.class;
+        }
+        if (type == float.class) {
+            return primitive != boolean.class && primitive != double.class;
+        }
+        if (type == double.class) {
+            return primitive != boolean.class;
+        }
+        return false;
+    }
+
+    /**
+     * Return a handle invoking a method as (Object instance, Object[] parameters) -> Object
+     * <p>
+     * The parameters array must have exactly as many elements as the method has parameters. The instance is ignored
+     * for static methods.
+     */
+    public static MethodHandle getInvoker(Method method) {
+        return unreflect(method)
+                .asSpreader(Object[].class, method.getParameterCount())
+                .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+    }
+
+    /**
+     * Return a handle invoking a method as (Object instance, Parser[] parsers, Object[] leading) -> Object
+     * <p>
+     * The method is passed the leading arguments followed by the result of each parser. A parser is asked for its
+     * result through the accessor matching the parameter type, so int, long and double parameters are filled
+     * without boxing. The arrays must have exactly as many elements as the method has parameters. The instance is
+     * ignored for static methods.
+     */
+    public static MethodHandle getBinder(Method method, int leading) {
+        Class<?>[] types = method.getParameterTypes();
+        int count = types.length - leading;
+
+        MethodHandle[] results = new MethodHandle[count];
+        for (int i = 0; i < count; i++) {
+            results[i] = getResultAccessor(types[leading + i]);
+        }
+
+        // (instance, leading..., Parser[])
+        MethodHandle handle = MethodHandles.filterArguments(unreflect(method), 1 + leading, results)
+                .asSpreader(Parser[].class, count);
+
+        // (instance, Parser[], leading...)
+        Class<?>[] reordered = new Class<?>[2 + leading];
+        int[] positions = new int[2 + leading];
+        reordered[0] = handle.type().parameterType(0);
+        reordered[1] = Parser[].class;
+        for (int i = 0; i < leading; i++) {
+            reordered[2 + i] = types[i];
+            positions[1 + i] = 2 + i;
+        }
+        positions[1 + leading] = 1;
+
+        return MethodHandles.permuteArguments(handle, MethodType.methodType(handle.type().returnType(), reordered), positions)
+                .asSpreader(Object[].class, leading)
+                .asType(MethodType.methodType(Object.class, Object.class, Parser[].class, Object[].class));
+    }
+
+    private static MethodHandle getResultAccessor(Class<?> type) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+
+            if (type == int.class) {
+                return lookup.findVirtual(Parser.class, "getIntResult", MethodType.methodType(int.class));
+            }
+            if (type == long.class) {
+                return lookup.findVirtual(Parser.class, "getLongResult", MethodType.methodType(long.class));
+            }
+            if (type == double.class) {
+                return lookup.findVirtual(Parser.class, "getDoubleResult", MethodType.methodType(double.class));
+            }
+
+            return lookup.findVirtual(Parser.class, "getResult", MethodType.methodType(Object.class))
+                    .asType(MethodType.methodType(type, Parser.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access parser results", e);
+        }
+    }
+
+    /**
+     * Return a handle to a method taking the instance first, which static methods take and ignore
+     */
+    private static MethodHandle unreflect(Method method) {
+        try {
+            method.setAccessible(true);
+        } catch (RuntimeException ignored) {
+            // Try anyway, public methods don't need it
+        }
+
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access method " + method, e);
+        }
+
+        return Modifier.isStatic(method.getModifiers()) ? MethodHandles.dropArguments(handle, 0, Object.class) : handle;
+    }
 }
@@ -39,9 +39,13 @@ public class BukkitCommandContext extends CommandContext {
         this.sender = sender;
     }
 
-    @SuppressWarnings("unused")
     public BukkitCommandContext(BukkitCommandContext original) {
         super(original);
         this.sender = original.getSender();
     }
+
+    @Override
+    public BukkitCommandContext copy() {
+        return new BukkitCommandContext(this);
+    }
 }
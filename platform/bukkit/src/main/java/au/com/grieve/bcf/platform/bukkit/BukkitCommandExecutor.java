@@ -60,7 +60,9 @@ public class BukkitCommandExecutor extends Command {
     @Override
     public @NotNull List<String> tabComplete(@NotNull CommandSender sender, @NotNull String alias, String[] args) throws IllegalArgumentException {
         BukkitCommandContext context = new BukkitCommandContext(sender);
-        return commandRoot.complete(Arrays.asList(args), context).stream()
+        context.setDeadline(commandRoot.getManager().getCompletionDeadline());
+        return commandRoot.getManager().getCompletionCache()
+                .complete(sender, commandRoot, Arrays.asList(args), context).stream()
                 .map(Candidate::getValue)
                 .collect(Collectors.toList());
     }
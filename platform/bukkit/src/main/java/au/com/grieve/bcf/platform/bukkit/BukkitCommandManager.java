@@ -27,6 +27,7 @@ import au.com.grieve.bcf.BaseCommand;
 import au.com.grieve.bcf.CommandManager;
 import au.com.grieve.bcf.annotations.Command;
 import au.com.grieve.bcf.platform.bukkit.parsers.PlayerParser;
+import lombok.Getter;
 import org.bukkit.Bukkit;
 import org.bukkit.Server;
 import org.bukkit.command.CommandMap;
@@ -43,16 +44,40 @@ public class BukkitCommandManager extends CommandManager<
         BukkitCommand, BukkitCommandRoot
         > {
 
+    @Getter
     private final JavaPlugin plugin;
     private final CommandMap commandMap;
 
+    @Getter
+    private final OnlinePlayerIndex onlinePlayers = new OnlinePlayerIndex();
+
+    @Getter
+    private final OfflinePlayerIndex offlinePlayers;
+
     public BukkitCommandManager(JavaPlugin plugin) {
         super();
         this.plugin = plugin;
         this.commandMap = hookCommandMap();
+        this.offlinePlayers = new OfflinePlayerIndex(plugin, plugin.getDataFolder().toPath().resolve("bcf"));
+
+        onlinePlayers.rebuild();
+        offlinePlayers.load();
+        plugin.getServer().getPluginManager().registerEvents(new BukkitCommandListener(this), plugin);
 
         // Register Default Parsers
-        registerParser("player", PlayerParser.class);
+        registerParser("player", PlayerParser::new);
+    }
+
+    /**
+     * Stop anything running in the background. Called when the plugin is disabled.
+     */
+    public void close() {
+        offlinePlayers.close();
+    }
+
+    @Override
+    public boolean isMainThread() {
+        return Bukkit.isPrimaryThread();
     }
 
     /**
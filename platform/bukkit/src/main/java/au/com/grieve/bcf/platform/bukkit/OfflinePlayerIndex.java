@@ -0,0 +1,603 @@
+/*
+ * Copyright (c) 2020-2022 Brendan Grieve (bundabrg) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package au.com.grieve.bcf.platform.bukkit;
+
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.plugin.Plugin;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Names and UUIDs of every player that has joined
+ * <p>
+ * Asking Bukkit for offline players loads every player that has ever joined, so instead a table sorted by name is
+ * kept in a memory mapped file and searched directly. The table is built in the background the first time. Players
+ * joining after that are kept in memory and appended to a journal, and the table is rewritten once enough of them
+ * have joined.
+ * <p>
+ * Each rewrite goes to a new numbered table so a table is never replaced while it is mapped, which some platforms
+ * don't allow. Older tables are deleted once they can be.
+ * <p>
+ * Names are compared ignoring the case of ASCII letters. A player that joins with a new name is no longer found by
+ * their old one. Until the table is ready {@link #isReady()} is false.
+ */
+public class OfflinePlayerIndex {
+    private static final int MAGIC = 0x42434650;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 12;
+    private static final int NAME_BYTES = 32;
+    private static final int RECORD_BYTES = NAME_BYTES + 16;
+
+    // Rewrite the table once this many players have joined since it was written
+    private static final int REWRITE_THRESHOLD = 1000;
+
+    private static final Pattern TABLE_NAME = Pattern.compile("players-(\\d{1,18})\\.idx");
+
+    private final Plugin plugin;
+    private final Path folder;
+    private final Path journalFile;
+    private final Logger logger;
+
+    // Files are only touched from this thread
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "bcf-player-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Table table;
+
+    // Highest table number seen, only used by the writer
+    private long generation;
+
+    // Players that joined since the table was written, by key
+    private final NavigableMap<String, Entry> joined = new ConcurrentSkipListMap<>();
+
+    // The same players by UUID, so that any other name of theirs in the table is ignored
+    private final Map<UUID, Entry> joinedByUuid = new ConcurrentHashMap<>();
+
+    public OfflinePlayerIndex(Plugin plugin, Path folder) {
+        this.plugin = plugin;
+        this.folder = folder;
+        this.journalFile = folder.resolve("players.log");
+        this.logger = plugin.getLogger();
+    }
+
+    /**
+     * Open the table, building it in the background if needed
+     */
+    public void load() {
+        execute(() -> {
+            try {
+                Files.createDirectories(folder);
+                readJournal();
+
+                Table current = openLatest();
+                if (current != null) {
+                    table = current;
+                    return;
+                }
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Unable to load player index in " + folder, e);
+                return;
+            }
+
+            if (!plugin.isEnabled()) {
+                return;
+            }
+
+            // Bukkit may only be asked for its players on the main thread, which then hands them back to be written
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                List<Entry> entries = new ArrayList<>();
+                for (OfflinePlayer player : Bukkit.getOfflinePlayers()) {
+                    Entry entry = Entry.of(player);
+                    if (entry != null) {
+                        entries.add(entry);
+                    }
+                }
+
+                execute(() -> {
+                    try {
+                        rewrite(null, entries);
+                    } catch (IOException e) {
+                        logger.log(Level.WARNING, "Unable to build player index in " + folder, e);
+                    }
+                });
+            });
+        });
+    }
+
+    /**
+     * Finish writing anything pending and stop the writer. Called when the plugin is disabled, after which the index
+     * is no longer ready.
+     */
+    public void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warning("Timed out writing player index in " + folder);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        table = null;
+    }
+
+    public boolean isReady() {
+        return table != null;
+    }
+
+    /**
+     * Record a player joining
+     */
+    public void add(OfflinePlayer player) {
+        Entry entry = Entry.of(player);
+        if (entry == null || entry.uuid.equals(get(entry.name))) {
+            return;
+        }
+
+        remember(entry);
+
+        execute(() -> {
+            try {
+                try (Writer out = Files.newBufferedWriter(journalFile, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    out.write(entry.uuid + " " + entry.name + "\n");
+                }
+
+                Table current = table;
+                if (current != null && joined.size() >= REWRITE_THRESHOLD) {
+                    rewrite(current, current.entries());
+                }
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Unable to update player index in " + folder, e);
+            }
+        });
+    }
+
+    /**
+     * Keep an entry until the next rewrite, forgetting any other name of the same player
+     */
+    private void remember(Entry entry) {
+        joined.put(entry.key, entry);
+
+        Entry previous = joinedByUuid.put(entry.uuid, entry);
+        if (previous != null && !previous.key.equals(entry.key)) {
+            joined.remove(previous.key, previous);
+        }
+    }
+
+    /**
+     * Run a task on the writer, unless it has been closed
+     */
+    private void execute(Runnable task) {
+        try {
+            writer.execute(task);
+        } catch (RejectedExecutionException ignored) {
+            // Closed
+        }
+    }
+
+    /**
+     * Return the UUID of a player by name, or null if they have never joined
+     */
+    public UUID get(String name) {
+        String key = key(name);
+
+        Entry entry = joined.get(key);
+        if (entry != null) {
+            return entry.uuid;
+        }
+
+        Table current = table;
+        UUID uuid = current != null ? current.get(key.getBytes(StandardCharsets.UTF_8)) : null;
+
+        // Anyone that has joined since is only known by the name they joined with
+        return uuid != null && !joinedByUuid.containsKey(uuid) ? uuid : null;
+    }
+
+    /**
+     * Return up to limit names starting with prefix, in order
+     */
+    public List<String> complete(String prefix, int limit) {
+        String key = key(prefix);
+        TreeMap<String, String> result = new TreeMap<>();
+
+        for (Entry entry : joined.tailMap(key, true).values()) {
+            if (result.size() >= limit || !entry.key.startsWith(key)) {
+                break;
+            }
+            result.put(entry.key, entry.name);
+        }
+
+        Table current = table;
+        if (current != null) {
+            current.complete(key.getBytes(StandardCharsets.UTF_8), limit, joinedByUuid.keySet(), result);
+        }
+
+        List<String> names = new ArrayList<>(limit);
+        for (String name : result.values()) {
+            if (names.size() >= limit) {
+                break;
+            }
+            names.add(name);
+        }
+        return names;
+    }
+
+    /**
+     * Names are compared ignoring the case of ASCII letters only, the same as the table
+     */
+    private static String key(String name) {
+        char[] chars = name.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] >= 'A' && chars[i] <= 'Z') {
+                chars[i] += 'a' - 'A';
+            }
+        }
+        return new String(chars);
+    }
+
+    private void readJournal() throws IOException {
+        if (!Files.exists(journalFile)) {
+            return;
+        }
+
+        try (BufferedReader in = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                int space = line.indexOf(' ');
+                if (space < 0) {
+                    continue;
+                }
+
+                try {
+                    Entry entry = Entry.of(line.substring(space + 1), UUID.fromString(line.substring(0, space)));
+                    if (entry != null) {
+                        remember(entry);
+                    }
+                } catch (IllegalArgumentException ignored) {
+                    // Partly written line
+                }
+            }
+        }
+    }
+
+    private Path tableFile(long generation) {
+        return folder.resolve("players-" + generation + ".idx");
+    }
+
+    /**
+     * Open the newest valid table, or return null if there is none. Any other tables are deleted.
+     */
+    private Table openLatest() throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(folder, "players-*.idx")) {
+            for (Path file : files) {
+                Matcher matcher = TABLE_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    generations.add(Long.parseLong(matcher.group(1)));
+                }
+            }
+        }
+        generations.sort(Collections.reverseOrder());
+
+        Table result = null;
+        for (long current : generations) {
+            generation = Math.max(generation, current);
+
+            if (result == null) {
+                result = Table.open(tableFile(current));
+                if (result != null) {
+                    continue;
+                }
+            }
+
+            delete(tableFile(current));
+        }
+
+        return result;
+    }
+
+    /**
+     * Delete an old table if possible. One still mapped may not be deletable yet, so it is left for the next load.
+     */
+    private void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // Try again next load
+        }
+    }
+
+    /**
+     * Write entries and everyone that has joined to a new table replacing previous, and start a new journal
+     */
+    private void rewrite(Table previous, Collection<Entry> entries) throws IOException {
+        Map<String, Entry> joinedNow = new HashMap<>(joined);
+
+        // Drop old names of anyone that joined with a new one
+        Set<UUID> renamed = new HashSet<>();
+        for (Entry entry : joinedNow.values()) {
+            renamed.add(entry.uuid);
+        }
+
+        Map<String, Entry> merged = new HashMap<>();
+        for (Entry entry : entries) {
+            if (!renamed.contains(entry.uuid)) {
+                merged.put(entry.key, entry);
+            }
+        }
+        merged.putAll(joinedNow);
+
+        List<Entry> sorted = new ArrayList<>(merged.values());
+        sorted.sort((a, b) -> Table.compare(a.keyBytes, b.keyBytes));
+
+        Table result = Table.write(tableFile(generation + 1), sorted);
+        generation++;
+
+        // Publish the table before forgetting the players it now holds so that lookups never miss them
+        table = result;
+
+        Files.deleteIfExists(journalFile);
+        for (Entry entry : joinedNow.values()) {
+            joinedByUuid.remove(entry.uuid, entry);
+            joined.remove(entry.key, entry);
+        }
+
+        if (previous != null) {
+            delete(previous.file);
+        }
+    }
+
+    private static class Entry {
+        final String name;
+        final String key;
+        final byte[] keyBytes;
+        final UUID uuid;
+
+        private Entry(String name, UUID uuid) {
+            this.name = name;
+            this.key = key(name);
+            this.keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            this.uuid = uuid;
+        }
+
+        /**
+         * Return an entry, or null if the name can't be stored
+         */
+        static Entry of(String name, UUID uuid) {
+            if (name == null || name.isEmpty() || name.getBytes(StandardCharsets.UTF_8).length > NAME_BYTES) {
+                return null;
+            }
+            return new Entry(name, uuid);
+        }
+
+        static Entry of(OfflinePlayer player) {
+            return of(player.getName(), player.getUniqueId());
+        }
+    }
+
+    /**
+     * Memory mapped table of fixed size records holding a zero padded UTF-8 name and a UUID, sorted by name
+     */
+    private static class Table {
+        private final Path file;
+        private final ByteBuffer buffer;
+        private final int count;
+
+        private Table(Path file, ByteBuffer buffer, int count) {
+            this.file = file;
+            this.buffer = buffer;
+            this.count = count;
+        }
+
+        /**
+         * Open an existing table, or return null if there is none or it isn't valid
+         */
+        static Table open(Path file) throws IOException {
+            if (!Files.exists(file)) {
+                return null;
+            }
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size < HEADER_BYTES) {
+                    return null;
+                }
+
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                int count = buffer.getInt(8);
+                if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || size != HEADER_BYTES + (long) count * RECORD_BYTES) {
+                    return null;
+                }
+
+                return new Table(file, buffer, count);
+            }
+        }
+
+        /**
+         * Write sorted entries to a new file and open it
+         */
+        static Table write(Path file, List<Entry> entries) throws IOException {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(entries.size());
+
+                for (Entry entry : entries) {
+                    byte[] name = entry.name.getBytes(StandardCharsets.UTF_8);
+                    out.write(name);
+                    out.write(new byte[NAME_BYTES - name.length]);
+                    out.writeLong(entry.uuid.getMostSignificantBits());
+                    out.writeLong(entry.uuid.getLeastSignificantBits());
+                }
+            }
+
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return open(file);
+        }
+
+        UUID get(byte[] key) {
+            if (key.length > NAME_BYTES) {
+                return null;
+            }
+
+            int index = lowerBound(key);
+            if (index < count && compare(index, key) == 0) {
+                return uuid(index);
+            }
+            return null;
+        }
+
+        /**
+         * Add up to limit names starting with prefix to result, skipping players in ignore
+         */
+        void complete(byte[] prefix, int limit, Set<UUID> ignore, Map<String, String> result) {
+            if (prefix.length > NAME_BYTES) {
+                return;
+            }
+
+            for (int index = lowerBound(prefix), found = 0; index < count && found < limit && startsWith(index, prefix); index++) {
+                if (ignore.contains(uuid(index))) {
+                    continue;
+                }
+
+                String name = name(index);
+                result.putIfAbsent(key(name), name);
+                found++;
+            }
+        }
+
+        List<Entry> entries() {
+            List<Entry> result = new ArrayList<>(count);
+            for (int index = 0; index < count; index++) {
+                result.add(new Entry(name(index), uuid(index)));
+            }
+            return result;
+        }
+
+        private int lowerBound(byte[] key) {
+            int low = 0;
+            int high = count;
+
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compare(mid, key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+
+            return low;
+        }
+
+        /**
+         * Compare the name of a record against a key as if the key was zero padded
+         */
+        private int compare(int index, byte[] key) {
+            int offset = HEADER_BYTES + index * RECORD_BYTES;
+            for (int i = 0; i < NAME_BYTES; i++) {
+                int a = fold(buffer.get(offset + i));
+                int b = i < key.length ? key[i] & 0xff : 0;
+                if (a != b) {
+                    return a - b;
+                }
+            }
+            return 0;
+        }
+
+        private boolean startsWith(int index, byte[] prefix) {
+            int offset = HEADER_BYTES + index * RECORD_BYTES;
+            for (int i = 0; i < prefix.length; i++) {
+                if (fold(buffer.get(offset + i)) != (prefix[i] & 0xff)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String name(int index) {
+            int offset = HEADER_BYTES + index * RECORD_BYTES;
+            int length = 0;
+            while (length < NAME_BYTES && buffer.get(offset + length) != 0) {
+                length++;
+            }
+
+            byte[] name = new byte[length];
+            for (int i = 0; i < length; i++) {
+                name[i] = buffer.get(offset + i);
+            }
+            return new String(name, StandardCharsets.UTF_8);
+        }
+
+        private UUID uuid(int index) {
+            int offset = HEADER_BYTES + index * RECORD_BYTES + NAME_BYTES;
+            return new UUID(buffer.getLong(offset), buffer.getLong(offset + 8));
+        }
+
+        static int compare(byte[] a, byte[] b) {
+            for (int i = 0; i < Math.min(a.length, b.length); i++) {
+                int c = (a[i] & 0xff) - (b[i] & 0xff);
+                if (c != 0) {
+                    return c;
+                }
+            }
+            return a.length - b.length;
+        }
+
+        private static int fold(byte b) {
+            int c = b & 0xff;
+            return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+        }
+    }
+}
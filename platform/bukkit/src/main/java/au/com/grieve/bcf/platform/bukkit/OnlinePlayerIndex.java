@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2020-2022 Brendan Grieve (bundabrg) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package au.com.grieve.bcf.platform.bukkit;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Online players by lowercase name
+ * <p>
+ * Kept up to date by {@link BukkitCommandListener} so lookups never have to scan every online player. It is safe to
+ * read from any thread.
+ */
+public class OnlinePlayerIndex {
+    private final Map<String, Player> players = new ConcurrentHashMap<>();
+    private final NavigableMap<String, Player> sorted = new ConcurrentSkipListMap<>();
+
+    /**
+     * Start again from the players currently online
+     */
+    public void rebuild() {
+        players.clear();
+        sorted.clear();
+
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            add(player);
+        }
+    }
+
+    public void add(Player player) {
+        String key = player.getName().toLowerCase(Locale.ROOT);
+        players.put(key, player);
+        sorted.put(key, player);
+    }
+
+    public void remove(Player player) {
+        String key = player.getName().toLowerCase(Locale.ROOT);
+
+        // Only remove if it is still this player
+        players.remove(key, player);
+        sorted.remove(key, player);
+    }
+
+    /**
+     * Return the online player with a name ignoring case, or null
+     */
+    public Player get(String name) {
+        return players.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Return up to limit names starting with prefix ignoring case, in alphabetical order
+     */
+    public List<String> complete(String prefix, int limit) {
+        String key = prefix.toLowerCase(Locale.ROOT);
+        List<String> result = new ArrayList<>();
+
+        for (Map.Entry<String, Player> entry : sorted.tailMap(key, true).entrySet()) {
+            if (result.size() >= limit || !entry.getKey().startsWith(key)) {
+                break;
+            }
+            result.add(entry.getValue().getName());
+        }
+
+        return result;
+    }
+}
@@ -29,18 +29,19 @@ import au.com.grieve.bcf.CommandManager;
 import au.com.grieve.bcf.exceptions.ParserInvalidResultException;
 import au.com.grieve.bcf.parsers.SingleParser;
 import au.com.grieve.bcf.platform.bukkit.BukkitCommandContext;
+import au.com.grieve.bcf.platform.bukkit.BukkitCommandManager;
+import au.com.grieve.bcf.platform.bukkit.OfflinePlayerIndex;
+import au.com.grieve.bcf.platform.bukkit.OnlinePlayerIndex;
 import org.bukkit.Bukkit;
-import org.bukkit.OfflinePlayer;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.ConsoleCommandSender;
-import org.bukkit.entity.HumanEntity;
 import org.bukkit.entity.Player;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.UUID;
 
 /**
  * Name of a player
@@ -56,6 +57,14 @@ public class PlayerParser extends SingleParser {
         super(manager, argNode, context);
     }
 
+    private OnlinePlayerIndex getOnlinePlayers() {
+        return ((BukkitCommandManager) manager).getOnlinePlayers();
+    }
+
+    private OfflinePlayerIndex getOfflinePlayers() {
+        return ((BukkitCommandManager) manager).getOfflinePlayers();
+    }
+
     @Override
     protected Object result() throws ParserInvalidResultException {
         switch (getParameter("mode", "offline")) {
@@ -68,10 +77,11 @@ public class PlayerParser extends SingleParser {
                     return sender;
                 }
 
-                return Bukkit.getOnlinePlayers().stream()
-                        .filter(p -> p.getName().equalsIgnoreCase(getInput()))
-                        .findFirst()
-                        .orElseThrow(() -> new ParserInvalidResultException(this, "No such player can be found online"));
+                Player player = getOnlinePlayers().get(getInput());
+                if (player == null) {
+                    throw new ParserInvalidResultException(this, "No such player can be found online");
+                }
+                return player;
             case "offline":
                 if (getInput().equals("%self")) {
                     CommandSender sender = ((BukkitCommandContext) context).getSender();
@@ -82,6 +92,16 @@ public class PlayerParser extends SingleParser {
                     return Bukkit.getOfflinePlayer(((Player) ((BukkitCommandContext) context).getSender()).getUniqueId());
                 }
 
+                OfflinePlayerIndex index = getOfflinePlayers();
+                if (index.isReady()) {
+                    UUID uuid = index.get(getInput());
+                    if (uuid == null) {
+                        throw new ParserInvalidResultException(this, "No such player can be found");
+                    }
+                    return Bukkit.getOfflinePlayer(uuid);
+                }
+
+                // Index is still being built
                 return Arrays.stream(Bukkit.getOfflinePlayers())
                         .filter(p -> p.getName() != null)
                         .filter(p -> Objects.equals(p.getName().toLowerCase(), getInput().toLowerCase()))
@@ -96,19 +116,21 @@ public class PlayerParser extends SingleParser {
     protected List<String> complete() {
         switch (getParameter("mode", "offline")) {
             case "online":
-                return Bukkit.getOnlinePlayers().stream()
-                        .map(HumanEntity::getName)
-                        .filter(s -> s.toLowerCase().startsWith(getInput().toLowerCase()))
-                        .limit(20)
-                        .collect(Collectors.toList());
+                return getOnlinePlayers().complete(getInput(), 20);
             case "offline":
-                return Arrays.stream(Bukkit.getOfflinePlayers())
-                        .map(OfflinePlayer::getName).filter(Objects::nonNull)
-                        .filter(s -> s.toLowerCase().startsWith(getInput().toLowerCase()))
-                        .limit(20)
-                        .collect(Collectors.toList());
+                if (getOfflinePlayers().isReady()) {
+                    return getOfflinePlayers().complete(getInput(), 20);
+                }
+
+                // Loading every offline player would stall the tab completion, so offer those online until ready
+                return getOnlinePlayers().complete(getInput(), 20);
         }
 
         return new ArrayList<>();
     }
+
+    @Override
+    public boolean isReusable() {
+        return true;
+    }
 }
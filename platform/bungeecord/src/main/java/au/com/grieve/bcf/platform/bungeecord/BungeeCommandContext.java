@@ -39,9 +39,13 @@ public class BungeeCommandContext extends CommandContext {
         this.sender = sender;
     }
 
-    @SuppressWarnings("unused")
     public BungeeCommandContext(BungeeCommandContext original) {
         super(original);
         this.sender = original.getSender();
     }
+
+    @Override
+    public BungeeCommandContext copy() {
+        return new BungeeCommandContext(this);
+    }
 }
@@ -56,7 +56,9 @@ public class BungeeCommandExecutor extends Command implements TabExecutor {
     @Override
     public Iterable<String> onTabComplete(CommandSender sender, String[] args) {
         BungeeCommandContext context = new BungeeCommandContext(sender);
-        return commandRoot.complete(Arrays.asList(args), context).stream()
+        context.setDeadline(commandRoot.getManager().getCompletionDeadline());
+        return commandRoot.getManager().getCompletionCache()
+                .complete(sender, commandRoot, Arrays.asList(args), context).stream()
                 .map(Candidate::getValue)
                 .collect(Collectors.toList());
     }
@@ -37,6 +37,8 @@ public class BungeeCommandManager extends CommandManager<BungeeCommand, BungeeCo
         super();
         this.plugin = plugin;
 
+        plugin.getProxy().getPluginManager().registerListener(plugin, new BungeeCommandListener(this));
+
         // Register Default Parsers
 //        registerParser("player", PlayerParser.class);
     }
@@ -24,29 +24,23 @@
 package au.com.grieve.bcf.platform.bungeecord;
 
 import au.com.grieve.bcf.BaseCommand;
-import au.com.grieve.bcf.Candidate;
-import au.com.grieve.bcf.CommandExecute;
+import au.com.grieve.bcf.CommandContext;
 import au.com.grieve.bcf.CommandRoot;
-import au.com.grieve.bcf.annotations.Permission;
+import au.com.grieve.bcf.MethodDescriptor;
+import au.com.grieve.bcf.NodeFilter;
 import net.md_5.bungee.api.CommandSender;
 
-import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-
 public class BungeeCommandRoot extends CommandRoot {
     public BungeeCommandRoot(BungeeCommandManager manager, BaseCommand cmd) {
         super(manager, cmd);
+        setNodeFilter(new PermissionFilter());
     }
 
     /**
      * Retrieve List of permissions
      */
     public String[] getPermissions(BaseCommand command) {
-        return Arrays.stream(command.getClass().getAnnotationsByType(Permission.class))
-                .map(Permission::value)
-                .toArray(String[]::new);
+        return getManager().getDescriptor(command.getClass()).getPermissions().toArray(new String[0]);
     }
 
     @SuppressWarnings("unused")
@@ -58,72 +52,29 @@ public class BungeeCommandRoot extends CommandRoot {
      * Return true if class permits permission of sender
      */
     public boolean testPermission(BaseCommand command, CommandSender sender, boolean unknown) {
-        String[] permissions = getPermissions(command);
-
-        if (permissions.length > 0) {
-            // Check Sender has any permissions
-            for (String permission : getPermissions(command)) {
-                if (sender.hasPermission(permission)) {
-                    return true;
-                }
-            }
-        } else {
-            return unknown;
-        }
-
-        return false;
-    }
-
-    @SuppressWarnings("unused")
-    public CommandExecute execute(BaseCommand command, List<String> input, BungeeCommandContext context) {
-        if (testPermission(command, context.getSender(), false)) {
-            return super.execute(command, input, context);
-        }
-        return null;
+        return getManager().getPermissionCache().testAny(sender,
+                getManager().getDescriptor(command.getClass()).getPermissions(), unknown, CommandSender::hasPermission);
     }
 
-    @SuppressWarnings("unused")
-    protected CommandExecute executeMethod(Method method, BaseCommand command, List<String> input, BungeeCommandContext context) {
-        Permission[] permissions = method.getAnnotationsByType(Permission.class);
-
-        if (permissions.length > 0) {
-            // Check Sender has any permissions
-            for (Permission permission : permissions) {
-                if (context.getSender().hasPermission(permission.value())) {
-                    return super.executeMethod(method, command, input, context);
-                }
-            }
-
-            return null;
-        }
-
-        return super.executeMethod(method, command, input, context);
-
+    /**
+     * Return true if method permits permission of sender
+     */
+    public boolean testPermission(MethodDescriptor method, CommandSender sender, boolean unknown) {
+        return getManager().getPermissionCache().testAny(sender, method.getPermissions(), unknown, CommandSender::hasPermission);
     }
 
-    @SuppressWarnings("unused")
-    public List<Candidate> complete(BaseCommand command, List<String> input, BungeeCommandContext context) {
-        if (testPermission(command, context.getSender(), false)) {
-            return super.complete(command, input, context);
+    /**
+     * Skips commands and methods the sender has no permission for, before their input is parsed
+     */
+    protected class PermissionFilter implements NodeFilter {
+        @Override
+        public boolean testCommand(BaseCommand command, CommandContext context) {
+            return !(context instanceof BungeeCommandContext) || testPermission(command, ((BungeeCommandContext) context).getSender(), true);
         }
-        return new ArrayList<>();
-    }
-
-    @SuppressWarnings("unused")
-    protected List<Candidate> completeMethod(Method method, BaseCommand command, List<String> input, BungeeCommandContext context) {
-        Permission[] permissions = method.getAnnotationsByType(Permission.class);
-
-        if (permissions.length > 0) {
-            // Check Sender has any permissions
-            for (Permission permission : permissions) {
-                if (context.getSender().hasPermission(permission.value())) {
-                    return super.completeMethod(method, command, input, context);
-                }
-            }
 
-            return new ArrayList<>();
+        @Override
+        public boolean testMethod(BaseCommand command, MethodDescriptor method, CommandContext context) {
+            return !(context instanceof BungeeCommandContext) || testPermission(method, ((BungeeCommandContext) context).getSender(), true);
         }
-
-        return super.completeMethod(method, command, input, context);
     }
 }
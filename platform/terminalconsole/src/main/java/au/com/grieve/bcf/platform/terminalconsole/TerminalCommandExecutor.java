@@ -28,7 +28,6 @@ import au.com.grieve.bcf.CommandExecute;
 import au.com.grieve.bcf.platform.terminalconsole.mapper.Command;
 import org.jline.reader.Candidate;
 
-import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -43,9 +42,9 @@ public class TerminalCommandExecutor extends Command {
     }
 
     @Override
-    public boolean execute(String cmd, String[] args) {
+    public boolean execute(String cmd, String args) {
         CommandContext context = new CommandContext();
-        CommandExecute commandExecute = commandRoot.execute(Arrays.asList(args), context);
+        CommandExecute commandExecute = commandRoot.execute(args, context);
         if (commandExecute != null) {
             commandExecute.invoke();
             return true;
@@ -54,9 +53,9 @@ public class TerminalCommandExecutor extends Command {
     }
 
     @Override
-    public List<Candidate> complete(String cmd, String[] args) {
+    public List<Candidate> complete(String cmd, String args) {
         CommandContext context = new CommandContext();
-        return commandRoot.complete(Arrays.asList(args), context).stream()
+        return commandRoot.complete(args, context).stream()
                 .map(c -> new Candidate(c.getValue(), c.getTitle(), null, c.getDescription(), null, c.getKey(), true))
                 .collect(Collectors.toList());
     }
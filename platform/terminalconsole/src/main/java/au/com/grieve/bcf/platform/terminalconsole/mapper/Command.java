@@ -44,7 +44,41 @@ public abstract class Command {
         this.description = description;
     }
 
-    public abstract boolean execute(String cmd, String[] args);
+    /**
+     * Execute the command. By default calls {@link #execute(String, String[])} with the words split on spaces.
+     *
+     * @param args The rest of the line after the command name
+     */
+    public boolean execute(String cmd, String args) {
+        return execute(cmd, args.isEmpty() ? new String[0] : args.substring(1).split(" "));
+    }
+
+    /**
+     * Complete the command. By default calls {@link #complete(String, String[])} with the words split on spaces.
+     *
+     * @param args The rest of the line after the command name
+     */
+    public List<Candidate> complete(String cmd, String args) {
+        return complete(cmd, args.isEmpty() ? new String[]{""} : args.substring(1).split(" ", -1));
+    }
 
-    public abstract List<Candidate> complete(String cmd, String[] args);
+    /**
+     * Execute the command with its words split on spaces
+     *
+     * @deprecated Override {@link #execute(String, String)} instead, which can parse quoted words
+     */
+    @Deprecated
+    public boolean execute(String cmd, String[] args) {
+        throw new UnsupportedOperationException("Command " + name + " must override execute(String, String)");
+    }
+
+    /**
+     * Complete the command with its words split on spaces
+     *
+     * @deprecated Override {@link #complete(String, String)} instead, which can parse quoted words
+     */
+    @Deprecated
+    public List<Candidate> complete(String cmd, String[] args) {
+        throw new UnsupportedOperationException("Command " + name + " must override complete(String, String)");
+    }
 }
@@ -23,6 +23,7 @@
 
 package au.com.grieve.bcf.platform.terminalconsole.mapper;
 
+import au.com.grieve.bcf.Tokenizer;
 import lombok.Getter;
 import lombok.ToString;
 import org.jetbrains.annotations.NotNull;
@@ -66,42 +67,43 @@ public class CommandMap {
     }
 
     public boolean execute(String input) {
-        String[] args = input.split(" ", 2);
-        if (args[0].startsWith("/")) {
-            args[0] = args[0].substring(1);
+        Tokenizer.Tokens tokens = Tokenizer.tokenize(input, false);
+        if (tokens.isEmpty()) {
+            return false;
+        }
+
+        String name = tokens.get(0);
+        if (name.startsWith("/")) {
+            name = name.substring(1);
         }
 
-        Command command = findCommand(args[0]);
+        Command command = findCommand(name);
         if (command == null) {
             return false;
         }
 
-        return command.execute(args[0], args.length > 1 ? args[1].split(" ") : new String[0]);
+        return command.execute(name, input.substring(tokens.getEnd(0)));
     }
 
     public @NotNull List<Candidate> complete(String input) {
-        String[] args = input.split(" ", 2);
-        String prefix = args[0].startsWith("/") ? "/" : "";
-
-        if (args[0].startsWith("/")) {
-            args[0] = args[0].substring(1);
-        }
+        Tokenizer.Tokens tokens = Tokenizer.tokenize(input, true);
+        String prefix = tokens.get(0).startsWith("/") ? "/" : "";
+        String name = tokens.get(0).substring(prefix.length());
 
         // If still in first argument we return completion ourselves
-        if (args.length == 1) {
+        if (tokens.size() == 1) {
             return commands.keySet().stream()
-                    .filter(v -> v.startsWith(args[0]))
-                    .map(v -> prefix + v)
-                    .map(v -> new Candidate(v, v, null, commands.get(v).getDescription(), null, null, true))
+                    .filter(v -> v.startsWith(name))
+                    .map(v -> new Candidate(prefix + v, prefix + v, null, commands.get(v).getDescription(), null, null, true))
                     .collect(Collectors.toList());
         }
 
-        Command command = findCommand(args[0]);
+        Command command = findCommand(name);
 
         if (command == null) {
             return new ArrayList<>();
         }
 
-        return new ArrayList<>(command.complete(args[0], args[1].split(" ", -1)));
+        return new ArrayList<>(command.complete(name, input.substring(tokens.getEnd(0))));
     }
 }